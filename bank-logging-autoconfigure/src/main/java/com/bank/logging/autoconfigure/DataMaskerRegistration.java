@@ -0,0 +1,25 @@
+package com.bank.logging.autoconfigure;
+
+import com.bank.logging.masking.DataMasker;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Makes the configured {@link DataMasker}, custom rules included, the one used by Logback
+ * layouts and converters, which are created before the application context.
+ */
+public final class DataMaskerRegistration implements DisposableBean {
+
+    private final DataMasker dataMasker;
+
+    public DataMaskerRegistration(DataMasker dataMasker) {
+        this.dataMasker = dataMasker;
+        DataMasker.setCurrent(dataMasker);
+    }
+
+    @Override
+    public void destroy() {
+        if (DataMasker.current() == dataMasker) {
+            DataMasker.setCurrent(null);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.logging.autoconfigure;
+
+import com.bank.logging.metrics.DownstreamMetrics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/downstream}) exposing latency per downstream route and
+ * the most recent slow calls with their correlation ids.
+ */
+@Endpoint(id = "downstream")
+public class DownstreamEndpoint {
+
+    private final DownstreamMetrics downstreamMetrics;
+
+    public DownstreamEndpoint(DownstreamMetrics downstreamMetrics) {
+        this.downstreamMetrics = downstreamMetrics;
+    }
+
+    @ReadOperation
+    public Map<String, Object> downstream() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("routes", downstreamMetrics.snapshot());
+        result.put("slowCalls", downstreamMetrics.slowCalls());
+        return result;
+    }
+}
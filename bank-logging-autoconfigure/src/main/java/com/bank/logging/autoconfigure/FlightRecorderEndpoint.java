@@ -0,0 +1,39 @@
+package com.bank.logging.autoconfigure;
+
+import com.bank.logging.flightrecorder.FlightRecorder;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/flightrecorder}) returning the recorded events as masked
+ * NDJSON, or writing them to the dump directory.
+ */
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    private final FlightRecorder recorder;
+    private final Path dumpDirectory;
+
+    public FlightRecorderEndpoint(FlightRecorder recorder, Path dumpDirectory) {
+        this.recorder = recorder;
+        this.dumpDirectory = dumpDirectory;
+    }
+
+    @ReadOperation(produces = "application/x-ndjson")
+    public String events() throws IOException {
+        StringWriter writer = new StringWriter();
+        recorder.dump(writer);
+        return writer.toString();
+    }
+
+    @WriteOperation
+    public Map<String, String> dump() throws IOException {
+        return Map.of("file", recorder.dumpTo(dumpDirectory).toString());
+    }
+}
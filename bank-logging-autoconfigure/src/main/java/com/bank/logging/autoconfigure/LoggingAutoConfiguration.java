@@ -1,29 +1,53 @@
 package com.bank.logging.autoconfigure;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
 import com.bank.logging.aspect.PaymentLoggingAspect;
 import com.bank.logging.filter.CorrelationIdFilter;
+import com.bank.logging.flightrecorder.FlightRecorder;
+import com.bank.logging.flightrecorder.FlightRecorderTurboFilter;
 import com.bank.logging.masking.DataMasker;
+import com.bank.logging.masking.LinearMaskingRule;
+import com.bank.logging.messaging.KafkaCorrelationProducerInterceptor;
+import com.bank.logging.messaging.KafkaCorrelationRecordInterceptor;
+import com.bank.logging.metrics.DownstreamMetrics;
+import com.bank.logging.metrics.DownstreamMetricsBinder;
+import com.bank.logging.metrics.LoggingMetricsBinder;
 import com.bank.logging.propagation.FeignCorrelationInterceptor;
 import com.bank.logging.propagation.RestClientCorrelationInterceptor;
 import com.bank.logging.propagation.RestTemplateCorrelationInterceptor;
 import com.bank.logging.propagation.WebClientCorrelationFilter;
+import com.bank.logging.serialization.PayloadLimits;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.core.Ordered;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @AutoConfiguration
 @EnableConfigurationProperties(LoggingProperties.class)
+@ImportRuntimeHints(LoggingRuntimeHints.class)
 @ConditionalOnProperty(prefix = "bank.logging", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class LoggingAutoConfiguration {
 
@@ -43,7 +67,126 @@ public class LoggingAutoConfiguration {
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = "bank.logging.masking", name = "enabled", havingValue = "true", matchIfMissing = true)
     public DataMasker dataMasker() {
-        return new DataMasker();
+        LoggingProperties.MaskingProperties masking = properties.getMasking();
+        List<LinearMaskingRule> customRules = new ArrayList<>();
+        for (LoggingProperties.MaskingRuleProperties rule : masking.getRules()) {
+            // Fails startup on invalid or unsafe patterns
+            customRules.add(LinearMaskingRule.compile(
+                rule.getName(), rule.getPattern(), rule.getReplacement(), masking.getMaxStepsPerChar()));
+        }
+        if (!customRules.isEmpty()) {
+            log.info("Loaded {} custom masking rules", customRules.size());
+        }
+        return new DataMasker(customRules);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "bank.logging.masking", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public DataMaskerRegistration dataMaskerRegistration(DataMasker dataMasker) {
+        return new DataMaskerRegistration(dataMasker);
+    }
+
+    // Self-observability, only when Micrometer is present
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(prefix = "bank.logging.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public class MetricsAutoConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public LoggingMetricsBinder loggingMetricsBinder() {
+            LoggingMetricsBinder binder = new LoggingMetricsBinder();
+            binder.setMaxLoggers(properties.getMetrics().getMaxLoggers());
+            return binder;
+        }
+    }
+
+    // Downstream call latency, recorded by the propagation interceptors
+    @Configuration
+    @ConditionalOnProperty(prefix = "bank.logging.downstream", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public class DownstreamAutoConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public DownstreamMetrics downstreamMetrics() {
+            DownstreamMetrics metrics = new DownstreamMetrics();
+            metrics.setSlowCallThresholdMs(properties.getDownstream().getSlowCallThresholdMs());
+            metrics.setMaxRoutes(properties.getDownstream().getMaxRoutes());
+            metrics.setMaxHosts(properties.getDownstream().getMaxHosts());
+            return metrics;
+        }
+
+        @Configuration
+        @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+        @ConditionalOnProperty(prefix = "bank.logging.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+        public static class DownstreamMetricsBinderConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public DownstreamMetricsBinder downstreamMetricsBinder(DownstreamMetrics downstreamMetrics) {
+                return new DownstreamMetricsBinder(downstreamMetrics);
+            }
+        }
+
+        @Configuration
+        @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+        public static class DownstreamEndpointConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public DownstreamEndpoint downstreamEndpoint(DownstreamMetrics downstreamMetrics) {
+                return new DownstreamEndpoint(downstreamMetrics);
+            }
+        }
+    }
+
+    // Flight recorder of recent events, opt-in
+    @Configuration
+    @ConditionalOnClass(name = "ch.qos.logback.classic.LoggerContext")
+    @ConditionalOnProperty(prefix = "bank.logging.flight-recorder", name = "enabled", havingValue = "true")
+    public class FlightRecorderAutoConfiguration {
+
+        @Bean(destroyMethod = "close")
+        @ConditionalOnMissingBean
+        public FlightRecorder flightRecorder(ObjectProvider<DataMasker> dataMasker) throws IOException {
+            LoggingProperties.FlightRecorderProperties props = properties.getFlightRecorder();
+            FlightRecorder recorder = FlightRecorder.open(Path.of(props.getFile()), props.getCapacity(),
+                props.isMaskOnWrite() ? dataMasker.getIfAvailable(DataMasker::new) : null);
+            Path dumpDirectory = Path.of(props.getDumpDirectory());
+            if (props.isDumpPreviousOnStartup() && !recorder.isEmpty()) {
+                log.info("Flight recorder events from the previous run dumped to {}", recorder.dumpTo(dumpDirectory));
+            }
+            if (props.isDumpOnFatalError()) {
+                recorder.dumpOnFatalError(dumpDirectory);
+            }
+            return recorder;
+        }
+
+        @Bean(destroyMethod = "stop")
+        @ConditionalOnMissingBean
+        public FlightRecorderTurboFilter flightRecorderTurboFilter(FlightRecorder recorder) {
+            FlightRecorderTurboFilter filter = new FlightRecorderTurboFilter(recorder);
+            filter.setLevel(Level.toLevel(properties.getFlightRecorder().getLevel(), Level.DEBUG));
+            if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+                filter.setName("bank-logging-flight-recorder");
+                filter.setContext(context);
+                filter.start();
+                context.addTurboFilter(filter);
+            }
+            return filter;
+        }
+
+        @Configuration
+        @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+        public static class FlightRecorderEndpointConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public FlightRecorderEndpoint flightRecorderEndpoint(FlightRecorder recorder, LoggingProperties properties) {
+                return new FlightRecorderEndpoint(recorder, Path.of(properties.getFlightRecorder().getDumpDirectory()));
+            }
+        }
     }
 
     // Servlet Filter Configuration
@@ -62,6 +205,7 @@ public class LoggingAutoConfiguration {
             filter.setGenerateIfMissing(corr.isGenerateIfMissing());
             filter.setIncludeClientIp(corr.isIncludeClientIp());
             filter.setIncludeRequestUri(corr.isIncludeRequestUri());
+            filter.setSlowRequestThresholdMs(corr.getSlowRequestThresholdMs());
             return filter;
         }
 
@@ -72,6 +216,7 @@ public class LoggingAutoConfiguration {
             FilterRegistrationBean<CorrelationIdFilter> registration = new FilterRegistrationBean<>();
             registration.setFilter(filter);
             registration.addUrlPatterns("/*");
+            registration.setAsyncSupported(true);
             registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
             registration.setName("correlationIdFilter");
             log.info("Registered CorrelationIdFilter");
@@ -92,6 +237,14 @@ public class LoggingAutoConfiguration {
             PaymentLoggingAspect aspect = new PaymentLoggingAspect(dataMasker);
             aspect.setEnabled(properties.getAspect().isEnabled());
             aspect.setDefaultPerformanceThresholdMs(properties.getAspect().getPerformanceThresholdMs());
+            LoggingProperties.AspectProperties aspectProps = properties.getAspect();
+            aspect.setDefaultPayloadLimits(new PayloadLimits(
+                aspectProps.getMaxPayloadBytes(),
+                aspectProps.getMaxPayloadDepth(),
+                aspectProps.getMaxCollectionElements(),
+                aspectProps.getMaxStringLength()
+            ));
+            aspect.setAggregateFlushIntervalMs(aspectProps.getAggregateFlushIntervalMs());
             log.info("Configured PaymentLoggingAspect with threshold={}ms", properties.getAspect().getPerformanceThresholdMs());
             return aspect;
         }
@@ -104,9 +257,10 @@ public class LoggingAutoConfiguration {
 
         @Bean
         @ConditionalOnMissingBean
-        public RestClientCorrelationInterceptor restClientCorrelationInterceptor() {
+        public RestClientCorrelationInterceptor restClientCorrelationInterceptor(
+                ObjectProvider<DownstreamMetrics> downstreamMetrics) {
             log.info(" RestClientCorrelationInterceptor created");
-            return new RestClientCorrelationInterceptor();
+            return new RestClientCorrelationInterceptor(downstreamMetrics.getIfAvailable());
         }
     }
 
@@ -118,8 +272,9 @@ public class LoggingAutoConfiguration {
 
         @Bean
         @ConditionalOnMissingBean
-        public RestTemplateCorrelationInterceptor restTemplateCorrelationInterceptor() {
-            return new RestTemplateCorrelationInterceptor();
+        public RestTemplateCorrelationInterceptor restTemplateCorrelationInterceptor(
+                ObjectProvider<DownstreamMetrics> downstreamMetrics) {
+            return new RestTemplateCorrelationInterceptor(downstreamMetrics.getIfAvailable());
         }
     }
 
@@ -131,8 +286,8 @@ public class LoggingAutoConfiguration {
 
         @Bean
         @ConditionalOnMissingBean
-        public WebClientCorrelationFilter webClientCorrelationFilter() {
-            return WebClientCorrelationFilter.create();
+        public WebClientCorrelationFilter webClientCorrelationFilter(ObjectProvider<DownstreamMetrics> downstreamMetrics) {
+            return WebClientCorrelationFilter.create(downstreamMetrics.getIfAvailable());
         }
     }
 
@@ -144,8 +299,54 @@ public class LoggingAutoConfiguration {
 
         @Bean
         @ConditionalOnMissingBean
-        public FeignCorrelationInterceptor feignCorrelationInterceptor() {
-            return new FeignCorrelationInterceptor();
+        public FeignCorrelationInterceptor feignCorrelationInterceptor(ObjectProvider<DownstreamMetrics> downstreamMetrics) {
+            return new FeignCorrelationInterceptor(downstreamMetrics.getIfAvailable());
+        }
+    }
+
+    // Kafka Configuration
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.kafka.core.KafkaTemplate")
+    @ConditionalOnProperty(prefix = "bank.logging.propagation", name = "kafka", havingValue = "true", matchIfMissing = true)
+    public class KafkaPropagationConfiguration {
+
+        // Picked up by Spring Boot's listener container factory only if it is the single
+        // RecordInterceptor bean: with two, Boot silently applies neither
+        @Bean
+        @ConditionalOnMissingBean(RecordInterceptor.class)
+        public KafkaCorrelationRecordInterceptor kafkaCorrelationRecordInterceptor() {
+            return new KafkaCorrelationRecordInterceptor();
+        }
+
+        @Bean
+        public DefaultKafkaProducerFactoryCustomizer kafkaCorrelationProducerCustomizer() {
+            return producerFactory -> {
+                // Appends to interceptors configured by the application
+                List<String> interceptors = interceptorClassNames(
+                    producerFactory.getConfigurationProperties().get(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG));
+                String interceptor = KafkaCorrelationProducerInterceptor.class.getName();
+                if (!interceptors.contains(interceptor)) {
+                    interceptors.add(interceptor);
+                    producerFactory.updateConfigs(Map.of(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, interceptors));
+                }
+            };
+        }
+
+        // interceptor.classes accepts a comma-separated string or a list of classes or names
+        private static List<String> interceptorClassNames(Object configured) {
+            List<String> names = new ArrayList<>();
+            if (configured instanceof Collection<?> values) {
+                for (Object value : values) {
+                    names.add(value instanceof Class<?> type ? type.getName() : value.toString().trim());
+                }
+            } else if (configured != null) {
+                for (String name : configured.toString().split(",")) {
+                    if (!name.isBlank()) {
+                        names.add(name.trim());
+                    }
+                }
+            }
+            return names;
         }
     }
 }
@@ -1,7 +1,14 @@
 package com.bank.logging.autoconfigure;
 
+import com.bank.logging.flightrecorder.FlightRecorder;
+import com.bank.logging.masking.LinearMaskingRule;
+import com.bank.logging.metrics.DownstreamMetrics;
+import com.bank.logging.metrics.LoggingMetrics;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "bank.logging")
 public class LoggingProperties {
 
@@ -12,22 +19,59 @@ public class LoggingProperties {
     private AspectProperties aspect = new AspectProperties();
     private CorrelationProperties correlation = new CorrelationProperties();
     private PropagationProperties propagation = new PropagationProperties();
+    private MetricsProperties metrics = new MetricsProperties();
+    private DownstreamProperties downstream = new DownstreamProperties();
+    private FlightRecorderProperties flightRecorder = new FlightRecorderProperties();
 
     public static class MaskingProperties {
         private boolean enabled = true;
+        private List<MaskingRuleProperties> rules = new ArrayList<>();
+        private int maxStepsPerChar = 1024;
 
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public List<MaskingRuleProperties> getRules() { return rules; }
+        public void setRules(List<MaskingRuleProperties> rules) { this.rules = rules; }
+        public int getMaxStepsPerChar() { return maxStepsPerChar; }
+        public void setMaxStepsPerChar(int maxStepsPerChar) { this.maxStepsPerChar = maxStepsPerChar; }
+    }
+
+    public static class MaskingRuleProperties {
+        private String name;
+        private String pattern;
+        private String replacement = LinearMaskingRule.REDACTED;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getPattern() { return pattern; }
+        public void setPattern(String pattern) { this.pattern = pattern; }
+        public String getReplacement() { return replacement; }
+        public void setReplacement(String replacement) { this.replacement = replacement; }
     }
 
     public static class AspectProperties {
         private boolean enabled = true;
         private long performanceThresholdMs = 1000L;
+        private int maxPayloadBytes = 16_384;
+        private int maxPayloadDepth = 10;
+        private int maxCollectionElements = 100;
+        private int maxStringLength = 1_024;
+        private long aggregateFlushIntervalMs = 60_000L;
 
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
         public long getPerformanceThresholdMs() { return performanceThresholdMs; }
         public void setPerformanceThresholdMs(long performanceThresholdMs) { this.performanceThresholdMs = performanceThresholdMs; }
+        public int getMaxPayloadBytes() { return maxPayloadBytes; }
+        public void setMaxPayloadBytes(int maxPayloadBytes) { this.maxPayloadBytes = maxPayloadBytes; }
+        public int getMaxPayloadDepth() { return maxPayloadDepth; }
+        public void setMaxPayloadDepth(int maxPayloadDepth) { this.maxPayloadDepth = maxPayloadDepth; }
+        public int getMaxCollectionElements() { return maxCollectionElements; }
+        public void setMaxCollectionElements(int maxCollectionElements) { this.maxCollectionElements = maxCollectionElements; }
+        public int getMaxStringLength() { return maxStringLength; }
+        public void setMaxStringLength(int maxStringLength) { this.maxStringLength = maxStringLength; }
+        public long getAggregateFlushIntervalMs() { return aggregateFlushIntervalMs; }
+        public void setAggregateFlushIntervalMs(long aggregateFlushIntervalMs) { this.aggregateFlushIntervalMs = aggregateFlushIntervalMs; }
     }
 
     public static class CorrelationProperties {
@@ -36,6 +80,7 @@ public class LoggingProperties {
         private boolean generateIfMissing = true;
         private boolean includeClientIp = true;
         private boolean includeRequestUri = true;
+        private long slowRequestThresholdMs = 0L;
 
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -47,6 +92,8 @@ public class LoggingProperties {
         public void setIncludeClientIp(boolean includeClientIp) { this.includeClientIp = includeClientIp; }
         public boolean isIncludeRequestUri() { return includeRequestUri; }
         public void setIncludeRequestUri(boolean includeRequestUri) { this.includeRequestUri = includeRequestUri; }
+        public long getSlowRequestThresholdMs() { return slowRequestThresholdMs; }
+        public void setSlowRequestThresholdMs(long slowRequestThresholdMs) { this.slowRequestThresholdMs = slowRequestThresholdMs; }
     }
 
     // Getters and setters
@@ -64,12 +111,19 @@ public class LoggingProperties {
     public void setCorrelation(CorrelationProperties correlation) { this.correlation = correlation; }
     public PropagationProperties getPropagation() { return propagation; }
     public void setPropagation(PropagationProperties propagation) { this.propagation = propagation; }
+    public MetricsProperties getMetrics() { return metrics; }
+    public void setMetrics(MetricsProperties metrics) { this.metrics = metrics; }
+    public DownstreamProperties getDownstream() { return downstream; }
+    public void setDownstream(DownstreamProperties downstream) { this.downstream = downstream; }
+    public FlightRecorderProperties getFlightRecorder() { return flightRecorder; }
+    public void setFlightRecorder(FlightRecorderProperties flightRecorder) { this.flightRecorder = flightRecorder; }
 
     public static class PropagationProperties {
         private boolean restTemplate = true;
         private boolean restClient = true;
         private boolean webClient = true;
         private boolean feign = true;
+        private boolean kafka = true;
 
         public boolean isRestTemplate() { return restTemplate; }
         public void setRestTemplate(boolean restTemplate) { this.restTemplate = restTemplate; }
@@ -79,6 +133,63 @@ public class LoggingProperties {
         public void setWebClient(boolean webClient) { this.webClient = webClient; }
         public boolean isFeign() { return feign; }
         public void setFeign(boolean feign) { this.feign = feign; }
+        public boolean isKafka() { return kafka; }
+        public void setKafka(boolean kafka) { this.kafka = kafka; }
+    }
+
+    public static class MetricsProperties {
+        private boolean enabled = true;
+        private int maxLoggers = LoggingMetrics.DEFAULT_MAX_LOGGERS;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getMaxLoggers() { return maxLoggers; }
+        public void setMaxLoggers(int maxLoggers) { this.maxLoggers = maxLoggers; }
+    }
+
+    public static class DownstreamProperties {
+        private boolean enabled = true;
+        private long slowCallThresholdMs = 1000L;
+        private int maxRoutes = DownstreamMetrics.DEFAULT_MAX_ROUTES;
+        private int maxHosts = DownstreamMetrics.DEFAULT_MAX_HOSTS;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public long getSlowCallThresholdMs() { return slowCallThresholdMs; }
+        public void setSlowCallThresholdMs(long slowCallThresholdMs) { this.slowCallThresholdMs = slowCallThresholdMs; }
+        public int getMaxRoutes() { return maxRoutes; }
+        public void setMaxRoutes(int maxRoutes) { this.maxRoutes = maxRoutes; }
+        public int getMaxHosts() { return maxHosts; }
+        public void setMaxHosts(int maxHosts) { this.maxHosts = maxHosts; }
+    }
+
+    public static class FlightRecorderProperties {
+        private boolean enabled = false;
+        private String file = System.getProperty("java.io.tmpdir") + "/bank-logging/flight-recorder.ring";
+        private long capacity = FlightRecorder.DEFAULT_CAPACITY;
+        private String level = "DEBUG";
+        // false keeps raw values (PAN...) in the ring file until dumped, to save ~2 µs per event
+        private boolean maskOnWrite = true;
+        private String dumpDirectory = System.getProperty("java.io.tmpdir") + "/bank-logging/dumps";
+        private boolean dumpPreviousOnStartup = true;
+        private boolean dumpOnFatalError = true;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getFile() { return file; }
+        public void setFile(String file) { this.file = file; }
+        public long getCapacity() { return capacity; }
+        public void setCapacity(long capacity) { this.capacity = capacity; }
+        public String getLevel() { return level; }
+        public void setLevel(String level) { this.level = level; }
+        public boolean isMaskOnWrite() { return maskOnWrite; }
+        public void setMaskOnWrite(boolean maskOnWrite) { this.maskOnWrite = maskOnWrite; }
+        public String getDumpDirectory() { return dumpDirectory; }
+        public void setDumpDirectory(String dumpDirectory) { this.dumpDirectory = dumpDirectory; }
+        public boolean isDumpPreviousOnStartup() { return dumpPreviousOnStartup; }
+        public void setDumpPreviousOnStartup(boolean dumpPreviousOnStartup) { this.dumpPreviousOnStartup = dumpPreviousOnStartup; }
+        public boolean isDumpOnFatalError() { return dumpOnFatalError; }
+        public void setDumpOnFatalError(boolean dumpOnFatalError) { this.dumpOnFatalError = dumpOnFatalError; }
     }
 
 }
@@ -0,0 +1,63 @@
+package com.bank.logging.autoconfigure;
+
+import com.bank.logging.annotation.NoLogging;
+import com.bank.logging.annotation.PaymentBatchLog;
+import com.bank.logging.annotation.PaymentLog;
+import com.bank.logging.aspect.PaymentLoggingAspect;
+import com.bank.logging.masking.MaskedMdcConverter;
+import com.bank.logging.masking.MaskedMessageConverter;
+import com.bank.logging.masking.MaskedThrowableConverter;
+import com.bank.logging.masking.MaskingJsonLayout;
+import com.bank.logging.masking.MaskingPatternLayout;
+import com.bank.logging.metrics.DownstreamMetrics;
+import com.bank.logging.shipping.BulkFormat;
+import com.bank.logging.shipping.BulkHttpAppender;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Native-image hints for the parts of the starter that are reached through reflection.
+ */
+class LoggingRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources().registerPattern("logback-bank-defaults.xml");
+
+        // Instantiated and configured by Logback from XML
+        List<Class<?>> logbackComponents = List.of(
+            MaskingPatternLayout.class,
+            MaskingJsonLayout.class,
+            MaskedMessageConverter.class,
+            MaskedMdcConverter.class,
+            MaskedThrowableConverter.class,
+            BulkHttpAppender.class,
+            BulkFormat.class
+        );
+        for (Class<?> type : logbackComponents) {
+            hints.reflection().registerType(type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        // Pointcuts are parsed from the aspect's annotated methods at runtime
+        hints.reflection().registerType(PaymentLoggingAspect.class,
+            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.reflection().registerType(PaymentLog.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(NoLogging.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(PaymentBatchLog.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        // Instantiated by the Kafka producer from interceptor.classes
+        hints.reflection().registerType(
+            TypeReference.of("com.bank.logging.messaging.KafkaCorrelationProducerInterceptor"),
+            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        // Serialized to JSON by the downstream endpoint
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+            DownstreamMetrics.RouteSnapshot.class, DownstreamMetrics.SlowCall.class);
+    }
+}
@@ -0,0 +1,54 @@
+package com.bank.logging.autoconfigure;
+
+import com.bank.logging.annotation.NoLogging;
+import com.bank.logging.annotation.PaymentLog;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.ReflectionHints;
+import org.springframework.beans.factory.aot.BeanRegistrationAotContribution;
+import org.springframework.beans.factory.aot.BeanRegistrationAotProcessor;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers reflection hints for {@code @PaymentLog} methods at build time: the methods
+ * themselves, so the aspect can read their annotations, and their parameter and return
+ * types, so Jackson can serialize them in a native image.
+ */
+class PaymentLogBeanRegistrationAotProcessor implements BeanRegistrationAotProcessor {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public BeanRegistrationAotContribution processAheadOfTime(RegisteredBean registeredBean) {
+        Class<?> beanClass = registeredBean.getBeanClass();
+        boolean classAnnotated = beanClass.isAnnotationPresent(PaymentLog.class);
+
+        List<Method> methods = new ArrayList<>();
+        ReflectionUtils.doWithMethods(beanClass, methods::add, method ->
+            method.getDeclaringClass() != Object.class
+                && !method.isAnnotationPresent(NoLogging.class)
+                && (method.isAnnotationPresent(PaymentLog.class)
+                    || (classAnnotated && Modifier.isPublic(method.getModifiers()))));
+        if (methods.isEmpty()) {
+            return null;
+        }
+
+        return (generationContext, beanRegistrationCode) -> {
+            ReflectionHints reflection = generationContext.getRuntimeHints().reflection();
+            reflection.registerType(beanClass);
+            for (Method method : methods) {
+                reflection.registerMethod(method, ExecutableMode.INTROSPECT);
+                bindingRegistrar.registerReflectionHints(reflection, method.getGenericParameterTypes());
+                if (method.getReturnType() != void.class) {
+                    bindingRegistrar.registerReflectionHints(reflection, method.getGenericReturnType());
+                }
+            }
+        };
+    }
+}
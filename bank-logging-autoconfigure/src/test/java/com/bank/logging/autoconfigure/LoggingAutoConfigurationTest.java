@@ -0,0 +1,70 @@
+package com.bank.logging.autoconfigure;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.bank.logging.masking.DataMasker;
+import com.bank.logging.masking.MaskingJsonLayout;
+import com.bank.logging.masking.MaskingPatternLayout;
+import com.bank.logging.messaging.KafkaCorrelationRecordInterceptor;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingAutoConfigurationTest {
+
+    private static final String CONTRACT = "CTR-2024-000123";
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(LoggingAutoConfiguration.class))
+        .withPropertyValues("bank.logging.aspect.enabled=false");
+
+    @Test
+    void layoutsApplyConfiguredCustomRules() {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        // Created before the application context, as Logback does
+        MaskingPatternLayout patternLayout = new MaskingPatternLayout();
+        patternLayout.setContext(loggerContext);
+        patternLayout.setPattern("%level %mmsg");
+        patternLayout.start();
+        MaskingJsonLayout jsonLayout = new MaskingJsonLayout();
+        jsonLayout.setContext(loggerContext);
+        jsonLayout.start();
+        LoggingEvent event = new LoggingEvent("fqcn", loggerContext.getLogger("test"), Level.INFO,
+            "contract " + CONTRACT + " signed", null, null);
+
+        contextRunner
+            .withPropertyValues(
+                "bank.logging.masking.rules[0].name=contract-ref",
+                "bank.logging.masking.rules[0].pattern=CTR-\\d{4}-\\d{6}",
+                "bank.logging.masking.rules[0].replacement=CTR-****-******")
+            .run(context -> {
+                assertThat(DataMasker.current()).isSameAs(context.getBean(DataMasker.class));
+                assertThat(patternLayout.doLayout(event)).isEqualTo("INFO contract CTR-****-****** signed");
+                assertThat(jsonLayout.doLayout(event)).contains("contract CTR-****-****** signed")
+                    .doesNotContain(CONTRACT);
+            });
+
+        // Back to the built-in rules once the context is closed
+        assertThat(patternLayout.doLayout(event)).contains(CONTRACT);
+    }
+
+    @Test
+    void providesTheKafkaRecordInterceptorWhenTheApplicationHasNone() {
+        contextRunner.run(context -> assertThat(context.getBeansOfType(RecordInterceptor.class).values())
+            .singleElement().isInstanceOf(KafkaCorrelationRecordInterceptor.class));
+    }
+
+    @Test
+    void backsOffFromAnApplicationRecordInterceptor() {
+        // Boot's listener container factory applies a RecordInterceptor only if it is unique
+        contextRunner
+            .withBean("auditInterceptor", RecordInterceptor.class, () -> (record, consumer) -> record)
+            .run(context -> assertThat(context.getBeansOfType(RecordInterceptor.class))
+                .containsOnlyKeys("auditInterceptor"));
+    }
+}
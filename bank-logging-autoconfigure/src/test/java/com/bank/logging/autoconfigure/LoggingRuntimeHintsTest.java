@@ -0,0 +1,50 @@
+package com.bank.logging.autoconfigure;
+
+import com.bank.logging.annotation.PaymentLog;
+import com.bank.logging.aspect.PaymentLoggingAspect;
+import com.bank.logging.masking.MaskedMessageConverter;
+import com.bank.logging.masking.MaskingJsonLayout;
+import com.bank.logging.masking.MaskingPatternLayout;
+import com.bank.logging.shipping.BulkHttpAppender;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    LoggingRuntimeHintsTest() {
+        new LoggingRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registersTheDefaultConfiguration() {
+        assertThat(RuntimeHintsPredicates.resource().forResource("logback-bank-defaults.xml")).accepts(hints);
+    }
+
+    @Test
+    void logbackCanCreateAndConfigureTheComponents() {
+        for (Class<?> type : new Class<?>[] {MaskingPatternLayout.class, MaskingJsonLayout.class,
+                MaskedMessageConverter.class, BulkHttpAppender.class}) {
+            assertThat(RuntimeHintsPredicates.reflection().onType(type)
+                .withMemberCategories(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS))
+                .accepts(hints);
+        }
+        assertThat(RuntimeHintsPredicates.reflection()
+            .onMethod(ReflectionUtils.findMethod(MaskingPatternLayout.class, "setDataMasker", (Class<?>[]) null))
+            .invoke()).accepts(hints);
+    }
+
+    @Test
+    void aspectPointcutsAndAnnotationsAreReadable() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(PaymentLoggingAspect.class)
+            .withMemberCategories(MemberCategory.INVOKE_DECLARED_METHODS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(PaymentLog.class, "operation").invoke())
+            .accepts(hints);
+    }
+}
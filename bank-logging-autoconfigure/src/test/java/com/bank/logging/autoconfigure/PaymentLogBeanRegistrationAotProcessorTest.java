@@ -0,0 +1,98 @@
+package com.bank.logging.autoconfigure;
+
+import com.bank.logging.annotation.NoLogging;
+import com.bank.logging.annotation.PaymentLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.generate.ClassNameGenerator;
+import org.springframework.aot.generate.DefaultGenerationContext;
+import org.springframework.aot.generate.InMemoryGeneratedFiles;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.aot.BeanRegistrationAotContribution;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.javapoet.ClassName;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentLogBeanRegistrationAotProcessorTest {
+
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    private final PaymentLogBeanRegistrationAotProcessor processor = new PaymentLogBeanRegistrationAotProcessor();
+
+    @Test
+    void annotatedMethodsCanBeIntrospectedAndTheirTypesBound() throws NoSuchMethodException {
+        RuntimeHints hints = process(Payments.class);
+
+        assertThat(RuntimeHintsPredicates.reflection()
+            .onMethod(Payments.class.getMethod("transfer", TransferRequest.class)).introspect()).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(TransferRequest.class)
+            .withMemberCategories(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(TransferRequest.class, "amount")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(TransferResult.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+            .onMethod(Payments.class.getMethod("health")).introspect()).rejects(hints);
+    }
+
+    @Test
+    void classLevelAnnotationCoversPublicMethodsExceptNoLogging() throws NoSuchMethodException {
+        RuntimeHints hints = process(Refunds.class);
+
+        assertThat(RuntimeHintsPredicates.reflection()
+            .onMethod(Refunds.class.getMethod("refund", String.class)).introspect()).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+            .onMethod(Refunds.class.getMethod("ping")).introspect()).rejects(hints);
+    }
+
+    @Test
+    void ignoresBeansWithoutPaymentLog() {
+        beanFactory.registerBeanDefinition("plain", new RootBeanDefinition(String.class));
+
+        assertThat(processor.processAheadOfTime(RegisteredBean.of(beanFactory, "plain"))).isNull();
+    }
+
+    private RuntimeHints process(Class<?> beanClass) {
+        beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(beanClass));
+        BeanRegistrationAotContribution contribution = processor.processAheadOfTime(
+            RegisteredBean.of(beanFactory, "bean"));
+        assertThat(contribution).isNotNull();
+        DefaultGenerationContext generationContext = new DefaultGenerationContext(
+            new ClassNameGenerator(ClassName.get(getClass())), new InMemoryGeneratedFiles());
+        // The contribution only registers hints, it generates no code
+        contribution.applyTo(generationContext, null);
+        return generationContext.getRuntimeHints();
+    }
+
+    public record TransferRequest(String iban, BigDecimal amount) {
+    }
+
+    public record TransferResult(String reference) {
+    }
+
+    public static class Payments {
+
+        @PaymentLog(operation = "TRANSFER")
+        public TransferResult transfer(TransferRequest request) {
+            return new TransferResult("ref");
+        }
+
+        public String health() {
+            return "UP";
+        }
+    }
+
+    @PaymentLog(operation = "REFUND")
+    public static class Refunds {
+
+        public void refund(String reference) {
+        }
+
+        @NoLogging
+        public void ping() {
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.bank.logging.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a batch entry point: when it returns, summaries of the {@code @PaymentLog(aggregate = true)}
+ * operations it ran on its own thread are logged, apart from other batches and periodic summaries.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PaymentBatchLog {
+
+    String name() default "";
+}
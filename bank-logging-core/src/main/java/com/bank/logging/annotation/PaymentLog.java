@@ -23,6 +23,18 @@ public @interface PaymentLog {
     
     String message() default "";
 
+    // Payload limits for logged params/result, 0 = aspect default
+    int maxPayloadBytes() default 0;
+
+    int maxPayloadDepth() default 0;
+
+    int maxCollectionElements() default 0;
+
+    int maxStringLength() default 0;
+
+    // Replaces ENTRY/EXIT lines by periodic and end-of-batch summaries; audit stays per call
+    boolean aggregate() default false;
+
     enum LogLevel {
         TRACE, DEBUG, INFO, WARN
     }
@@ -0,0 +1,13 @@
+package com.bank.logging.aspect;
+
+/**
+ * Outcome of an asynchronous payment operation.
+ */
+interface AsyncCompletion {
+
+    void onSuccess(Object value);
+
+    void onError(Throwable error);
+
+    void onCancel();
+}
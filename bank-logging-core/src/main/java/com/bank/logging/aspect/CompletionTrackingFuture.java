@@ -0,0 +1,126 @@
+package com.bank.logging.aspect;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps a plain {@link Future}, which offers no completion callback. Completion is reported
+ * the first time a caller observes it, so the measured time is an upper bound.
+ * <p>
+ * A subtype declared as the return type ({@code FutureTask}, {@code ScheduledFuture}...)
+ * cannot be replaced by this wrapper; {@link #watch} waits for it instead.
+ */
+final class CompletionTrackingFuture<V> implements Future<V> {
+
+    private final Future<V> delegate;
+    private final AsyncCompletion completion;
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    CompletionTrackingFuture(Future<V> delegate, AsyncCompletion completion) {
+        this.delegate = delegate;
+        this.completion = completion;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = delegate.cancel(mayInterruptIfRunning);
+        if (cancelled && reported.compareAndSet(false, true)) {
+            completion.onCancel();
+        }
+        return cancelled;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return delegate.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        boolean done = delegate.isDone();
+        if (done && !reported.get()) {
+            report();
+        }
+        return done;
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        try {
+            V value = delegate.get();
+            succeeded(value);
+            return value;
+        } catch (ExecutionException | CancellationException e) {
+            failed(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            V value = delegate.get(timeout, unit);
+            succeeded(value);
+            return value;
+        } catch (ExecutionException | CancellationException e) {
+            failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reports the outcome of {@code future} without replacing it: inline when it is already
+     * done, otherwise from a virtual thread parked on {@code get()}. A future that never
+     * completes keeps its watcher parked.
+     */
+    static void watch(Future<?> future, AsyncCompletion completion) {
+        if (future.isDone()) {
+            observe(future, completion);
+        } else {
+            Thread.ofVirtual().name("payment-log-future-watcher").start(() -> observe(future, completion));
+        }
+    }
+
+    private static void observe(Future<?> future, AsyncCompletion completion) {
+        try {
+            completion.onSuccess(future.get());
+        } catch (CancellationException e) {
+            completion.onCancel();
+        } catch (ExecutionException e) {
+            completion.onError(e.getCause() != null ? e.getCause() : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Only called once the delegate is done, so get() does not block
+    private void report() {
+        try {
+            succeeded(delegate.get());
+        } catch (ExecutionException | CancellationException e) {
+            failed(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void succeeded(V value) {
+        if (reported.compareAndSet(false, true)) {
+            completion.onSuccess(value);
+        }
+    }
+
+    private void failed(Exception e) {
+        if (reported.compareAndSet(false, true)) {
+            if (e instanceof CancellationException) {
+                completion.onCancel();
+            } else {
+                completion.onError(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.bank.logging.aspect;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-thread accumulators of call counts, errors and latency for aggregated operations.
+ * <p>
+ * Each thread records into its own accumulator under an uncontended lock; {@link #drain()}
+ * merges and resets all of them. Accumulators of dead threads are folded into a shared one
+ * as new threads register, so the set stays bounded even if nothing ever drains. A
+ * {@link Batch} collects the calls of one batch run apart from everything else. Latencies go
+ * into a log-linear histogram (4 sub-buckets per power of two, so percentiles are within 25%).
+ */
+final class OperationAggregator {
+
+    private static final int BUCKETS = 4 * 62;
+    private static final int MIN_SWEEP_THRESHOLD = 64;
+
+    private final Set<ThreadAccumulator> accumulators = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ThreadAccumulator> local = ThreadLocal.withInitial(this::register);
+    // What dead threads recorded and no drain has reported yet
+    private final Accumulator retired = new Accumulator();
+    private final AtomicInteger sweepThreshold = new AtomicInteger(MIN_SWEEP_THRESHOLD);
+
+    enum Outcome { SUCCESS, FAILURE, CANCELLED }
+
+    record Summary(String operation, long count, long errors, long cancelled, long minNanos, long maxNanos,
+                   long totalNanos, long p50Nanos, long p95Nanos, long p99Nanos) {
+    }
+
+    void record(String operation, long nanos, Outcome outcome) {
+        local.get().record(operation, nanos, outcome);
+    }
+
+    /**
+     * Merges the accumulators of all threads, resets them and returns one summary per operation.
+     */
+    List<Summary> drain() {
+        Map<String, OperationStats> merged = new TreeMap<>();
+        for (ThreadAccumulator accumulator : accumulators) {
+            accumulator.drainInto(merged);
+            if (!accumulator.isAlive()) {
+                accumulators.remove(accumulator);
+            }
+        }
+        retired.drainInto(merged);
+        return summaries(merged);
+    }
+
+    /**
+     * Starts collecting the calls of one batch run, reported by {@link Batch#close()} only.
+     */
+    Batch openBatch() {
+        return new Batch();
+    }
+
+    int accumulatorCount() {
+        return accumulators.size();
+    }
+
+    private ThreadAccumulator register() {
+        ThreadAccumulator accumulator = new ThreadAccumulator(Thread.currentThread());
+        accumulators.add(accumulator);
+        int threshold = sweepThreshold.get();
+        if (accumulators.size() >= threshold && sweepThreshold.compareAndSet(threshold, Integer.MAX_VALUE)) {
+            sweep();
+        }
+        return accumulator;
+    }
+
+    // Amortized: the next sweep waits until the live set has doubled
+    private void sweep() {
+        for (ThreadAccumulator accumulator : accumulators) {
+            if (!accumulator.isAlive()) {
+                synchronized (retired) {
+                    accumulator.drainInto(retired.stats);
+                }
+                accumulators.remove(accumulator);
+            }
+        }
+        sweepThreshold.set(Math.max(MIN_SWEEP_THRESHOLD, accumulators.size() * 2));
+    }
+
+    private static List<Summary> summaries(Map<String, OperationStats> merged) {
+        List<Summary> summaries = new ArrayList<>(merged.size());
+        merged.forEach((operation, stats) -> summaries.add(stats.summary(operation)));
+        return summaries;
+    }
+
+    /**
+     * Accumulator for one batch run. Calls completing after {@link #close()} are refused and
+     * belong to the periodic summaries instead.
+     */
+    static final class Batch {
+
+        private final Accumulator accumulator = new Accumulator();
+        private boolean closed;
+
+        boolean record(String operation, long nanos, Outcome outcome) {
+            synchronized (accumulator) {
+                if (closed) {
+                    return false;
+                }
+                accumulator.record(operation, nanos, outcome);
+                return true;
+            }
+        }
+
+        List<Summary> close() {
+            Map<String, OperationStats> merged = new TreeMap<>();
+            synchronized (accumulator) {
+                closed = true;
+                accumulator.drainInto(merged);
+            }
+            return summaries(merged);
+        }
+    }
+
+    private static class Accumulator {
+
+        final Map<String, OperationStats> stats = new HashMap<>();
+
+        synchronized void record(String operation, long nanos, Outcome outcome) {
+            OperationStats operationStats = stats.get(operation);
+            if (operationStats == null) {
+                operationStats = new OperationStats();
+                stats.put(operation, operationStats);
+            }
+            operationStats.record(nanos, outcome);
+        }
+
+        synchronized void drainInto(Map<String, OperationStats> merged) {
+            stats.forEach((operation, operationStats) -> {
+                if (operationStats.count > 0) {
+                    merged.computeIfAbsent(operation, o -> new OperationStats()).merge(operationStats);
+                    operationStats.reset();
+                }
+            });
+        }
+    }
+
+    private static final class ThreadAccumulator extends Accumulator {
+
+        private final WeakReference<Thread> thread;
+
+        ThreadAccumulator(Thread thread) {
+            this.thread = new WeakReference<>(thread);
+        }
+
+        boolean isAlive() {
+            Thread owner = thread.get();
+            return owner != null && owner.isAlive();
+        }
+    }
+
+    private static final class OperationStats {
+
+        private long count;
+        private long errors;
+        private long cancelled;
+        private long totalNanos;
+        private long minNanos = Long.MAX_VALUE;
+        private long maxNanos;
+        private final long[] histogram = new long[BUCKETS];
+
+        void record(long nanos, Outcome outcome) {
+            long value = Math.max(0, nanos);
+            count++;
+            if (outcome == Outcome.FAILURE) {
+                errors++;
+            } else if (outcome == Outcome.CANCELLED) {
+                cancelled++;
+            }
+            totalNanos += value;
+            minNanos = Math.min(minNanos, value);
+            maxNanos = Math.max(maxNanos, value);
+            histogram[bucket(value)]++;
+        }
+
+        void merge(OperationStats other) {
+            count += other.count;
+            errors += other.errors;
+            cancelled += other.cancelled;
+            totalNanos += other.totalNanos;
+            minNanos = Math.min(minNanos, other.minNanos);
+            maxNanos = Math.max(maxNanos, other.maxNanos);
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] += other.histogram[i];
+            }
+        }
+
+        void reset() {
+            count = 0;
+            errors = 0;
+            cancelled = 0;
+            totalNanos = 0;
+            minNanos = Long.MAX_VALUE;
+            maxNanos = 0;
+            Arrays.fill(histogram, 0);
+        }
+
+        Summary summary(String operation) {
+            return new Summary(operation, count, errors, cancelled, minNanos, maxNanos, totalNanos,
+                percentile(0.50), percentile(0.95), percentile(0.99));
+        }
+
+        private long percentile(double percentile) {
+            long rank = Math.max(1, (long) Math.ceil(percentile * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram[i];
+                if (seen >= rank) {
+                    return Math.min(Math.max(upperBound(i), minNanos), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    static int bucket(long value) {
+        if (value < 4) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - 2)) & 3;
+        return 4 * (exponent - 1) + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int exponent = bucket / 4 + 1;
+        long lower = (4L + bucket % 4) << (exponent - 2);
+        return lower + (1L << (exponent - 2)) - 1;
+    }
+}
@@ -1,10 +1,14 @@
 package com.bank.logging.aspect;
 
 import com.bank.logging.annotation.NoLogging;
+import com.bank.logging.annotation.PaymentBatchLog;
 import com.bank.logging.annotation.PaymentLog;
 import com.bank.logging.annotation.PaymentLog.LogLevel;
 import com.bank.logging.masking.DataMasker;
 import com.bank.logging.mdc.MdcKeys;
+import com.bank.logging.metrics.LoggingMetrics;
+import com.bank.logging.serialization.BoundedJsonWriter;
+import com.bank.logging.serialization.PayloadLimits;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -21,25 +25,43 @@ import org.slf4j.MDC;
 import java.lang.reflect.Method;
 import java.time.Instant;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Aspect
-public class PaymentLoggingAspect {
+public class PaymentLoggingAspect implements AutoCloseable {
+
+    public static final String METRICS_PAYLOAD = "aspect-payload";
+    public static final String METRICS_RECORD = "aspect-record";
 
     private static final Logger log = LoggerFactory.getLogger(PaymentLoggingAspect.class);
     private static final Logger auditLog = LoggerFactory.getLogger("AUDIT");
+    private static final boolean REACTOR_PRESENT = isPresent("reactor.core.publisher.Mono");
 
     private final DataMasker dataMasker;
     private final ObjectMapper objectMapper;
+    private final BoundedJsonWriter boundedJsonWriter;
     private boolean enabled = true;
     private long defaultPerformanceThresholdMs = 1000L;
+    private PayloadLimits defaultPayloadLimits = PayloadLimits.DEFAULT;
+    private final OperationAggregator aggregator = new OperationAggregator();
+    private final ThreadLocal<OperationAggregator.Batch> currentBatch = new ThreadLocal<>();
+    private long aggregateFlushIntervalMs = 60_000L;
+    private volatile ScheduledExecutorService aggregateFlusher;
 
     public PaymentLoggingAspect() {
         this.dataMasker = new DataMasker();
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         this.objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        this.boundedJsonWriter = new BoundedJsonWriter(objectMapper, this.dataMasker::mask);
     }
 
     public PaymentLoggingAspect(DataMasker dataMasker) {
@@ -47,6 +69,7 @@ public class PaymentLoggingAspect {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         this.objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        this.boundedJsonWriter = new BoundedJsonWriter(objectMapper, this.dataMasker::mask);
     }
 
     @Pointcut("@annotation(com.bank.logging.annotation.PaymentLog)")
@@ -61,6 +84,33 @@ public class PaymentLoggingAspect {
     @Pointcut("(paymentLogMethodAnnotation() || paymentLogClassAnnotation()) && !noLoggingAnnotation()")
     public void loggableMethods() {}
 
+    @Pointcut("@annotation(com.bank.logging.annotation.PaymentBatchLog)")
+    public void paymentBatchMethods() {}
+
+    @Around("paymentBatchMethods()")
+    public Object logPaymentBatch(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        PaymentBatchLog annotation = method.getAnnotation(PaymentBatchLog.class);
+        String name = annotation == null || annotation.name().isBlank() ? method.getName() : annotation.name();
+        // Only this run's calls end up in its summaries, even with other batches running
+        OperationAggregator.Batch previous = currentBatch.get();
+        OperationAggregator.Batch batch = aggregator.openBatch();
+        currentBatch.set(batch);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (previous != null) {
+                currentBatch.set(previous);
+            } else {
+                currentBatch.remove();
+            }
+            logSummaries(batch.close(), "end-of-batch:" + name, "batch");
+        }
+    }
+
     @Around("loggableMethods()")
     public Object logPaymentOperation(ProceedingJoinPoint joinPoint) throws Throwable {
         if (!enabled) {
@@ -76,38 +126,39 @@ public class PaymentLoggingAspect {
             return joinPoint.proceed();
         }
 
-        String operationId = UUID.randomUUID().toString().substring(0, 8);
+        boolean aggregate = annotation.aggregate();
+        // Aggregated calls only need an id for their audit record
+        String operationId = aggregate && !annotation.auditEnabled() ? null : UUID.randomUUID().toString().substring(0, 8);
         String operation = annotation.operation().isBlank() ? method.getName().toUpperCase() : annotation.operation();
         String className = targetClass.getSimpleName();
         String methodName = method.getName();
 
         MDC.put(MdcKeys.OPERATION, operation);
-        MDC.put(MdcKeys.OPERATION_ID, operationId);
+        if (operationId != null) {
+            MDC.put(MdcKeys.OPERATION_ID, operationId);
+        }
 
+        Invocation invocation = new Invocation(annotation, className, methodName, operation, operationId,
+            aggregate ? currentBatch.get() : null);
         long startTimeNanos = System.nanoTime();
 
         try {
-            logEntry(annotation, className, methodName, operation, joinPoint.getArgs(), signature.getParameterNames());
+            if (!aggregate) {
+                logEntry(annotation, className, methodName, operation, joinPoint.getArgs(), signature.getParameterNames());
+            }
 
             Object result = joinPoint.proceed();
 
-            long executionTimeMs = (System.nanoTime() - startTimeNanos) / 1_000_000;
-            logExit(annotation, className, methodName, operation, result, executionTimeMs);
-            checkPerformanceThreshold(annotation, operation, executionTimeMs);
-
-            if (annotation.auditEnabled()) {
-                logAudit(operation, operationId, "SUCCESS", executionTimeMs, null);
+            Object tracked = trackAsync(invocation, startTimeNanos, result, method.getReturnType());
+            if (tracked != null) {
+                // EXIT and audit happen when the async result completes
+                return tracked;
             }
-
+            onSuccess(invocation, result, System.nanoTime() - startTimeNanos);
             return result;
 
         } catch (Exception e) {
-            long executionTimeMs = (System.nanoTime() - startTimeNanos) / 1_000_000;
-            logError(className, methodName, operation, e, executionTimeMs);
-
-            if (annotation.auditEnabled()) {
-                logAudit(operation, operationId, "FAILURE", executionTimeMs, e);
-            }
+            onFailure(invocation, e, System.nanoTime() - startTimeNanos);
             throw e;
 
         } finally {
@@ -116,6 +167,204 @@ public class PaymentLoggingAspect {
         }
     }
 
+    /**
+     * Attaches completion callbacks to async results. Returns the object to hand back to the
+     * caller, or {@code null} when the result is not asynchronous.
+     */
+    private Object trackAsync(Invocation invocation, long startTimeNanos, Object result, Class<?> returnType) {
+        if (result instanceof CompletionStage<?> stage) {
+            AsyncCompletion completion = new Completion(invocation, startTimeNanos, MDC.getCopyOfContextMap());
+            // Runs on the completing thread, the caller keeps the original stage
+            stage.whenComplete((value, error) -> {
+                if (error == null) {
+                    completion.onSuccess(value);
+                } else {
+                    completion.onError(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+                }
+            });
+            return result;
+        }
+        if (REACTOR_PRESENT && ReactiveCompletion.isReactive(result)) {
+            Map<String, String> mdc = MDC.getCopyOfContextMap();
+            // Reactive work starts on subscription
+            return ReactiveCompletion.track(result, () -> new Completion(invocation, System.nanoTime(), mdc));
+        }
+        if (result instanceof Future<?> future) {
+            AsyncCompletion completion = new Completion(invocation, startTimeNanos, MDC.getCopyOfContextMap());
+            if (returnType == Future.class) {
+                return new CompletionTrackingFuture<>(future, completion);
+            }
+            // The caller expects the declared subtype (FutureTask, ListenableFuture...), so the
+            // future cannot be wrapped
+            CompletionTrackingFuture.watch(future, completion);
+            return result;
+        }
+        return null;
+    }
+
+    private void onSuccess(Invocation invocation, Object result, long executionTimeNanos) {
+        PaymentLog annotation = invocation.annotation();
+        long executionTimeMs = executionTimeNanos / 1_000_000;
+        if (annotation.aggregate()) {
+            recordAggregate(invocation, executionTimeNanos, OperationAggregator.Outcome.SUCCESS);
+        } else {
+            logExit(annotation, invocation.className(), invocation.methodName(), invocation.operation(), result, executionTimeMs);
+        }
+        checkPerformanceThreshold(annotation, invocation.operation(), executionTimeMs);
+
+        if (annotation.auditEnabled()) {
+            logAudit(invocation.operation(), invocation.operationId(), "SUCCESS", executionTimeMs, null);
+        }
+    }
+
+    private void onFailure(Invocation invocation, Throwable error, long executionTimeNanos) {
+        long executionTimeMs = executionTimeNanos / 1_000_000;
+        if (invocation.annotation().aggregate()) {
+            recordAggregate(invocation, executionTimeNanos, OperationAggregator.Outcome.FAILURE);
+        }
+        logError(invocation.className(), invocation.methodName(), invocation.operation(), error, executionTimeMs);
+
+        if (invocation.annotation().auditEnabled()) {
+            logAudit(invocation.operation(), invocation.operationId(), "FAILURE", executionTimeMs, error);
+        }
+    }
+
+    private void recordAggregate(Invocation invocation, long executionTimeNanos, OperationAggregator.Outcome outcome) {
+        OperationAggregator.Batch batch = invocation.batch();
+        if (batch != null && batch.record(invocation.operation(), executionTimeNanos, outcome)) {
+            return;
+        }
+        aggregator.record(invocation.operation(), executionTimeNanos, outcome);
+        if (aggregateFlusher == null && aggregateFlushIntervalMs > 0) {
+            startAggregateFlusher();
+        }
+    }
+
+    private synchronized void startAggregateFlusher() {
+        if (aggregateFlusher != null) {
+            return;
+        }
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-log-aggregate-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(() -> flushAggregates("periodic"),
+            aggregateFlushIntervalMs, aggregateFlushIntervalMs, TimeUnit.MILLISECONDS);
+        aggregateFlusher = flusher;
+    }
+
+    /**
+     * Logs one summary per aggregated operation recorded since the last flush, on all threads,
+     * outside of any {@code @PaymentBatchLog} run.
+     */
+    public void flushAggregates(String trigger) {
+        logSummaries(aggregator.drain(), trigger, "global");
+    }
+
+    private void logSummaries(List<OperationAggregator.Summary> summaries, String trigger, String scope) {
+        for (OperationAggregator.Summary summary : summaries) {
+            Map<String, Object> logData = new LinkedHashMap<>();
+            logData.put("phase", "SUMMARY");
+            logData.put("operation", summary.operation());
+            logData.put("scope", scope);
+            logData.put("trigger", trigger);
+            logData.put("count", summary.count());
+            logData.put("errors", summary.errors());
+            logData.put("cancelled", summary.cancelled());
+            logData.put("min_ms", toMillis(summary.minNanos()));
+            logData.put("mean_ms", toMillis(summary.totalNanos() / summary.count()));
+            logData.put("p50_ms", toMillis(summary.p50Nanos()));
+            logData.put("p95_ms", toMillis(summary.p95Nanos()));
+            logData.put("p99_ms", toMillis(summary.p99Nanos()));
+            logData.put("max_ms", toMillis(summary.maxNanos()));
+            log.info("Payment operation summary: {}", safeSerialize(logData));
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * Stops periodic flushing and logs the remaining summaries.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService flusher = aggregateFlusher;
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flushAggregates("shutdown");
+    }
+
+    private record Invocation(PaymentLog annotation, String className, String methodName,
+                              String operation, String operationId, OperationAggregator.Batch batch) {
+    }
+
+    /**
+     * Completion of one async execution, logged with the MDC of the calling thread.
+     */
+    private final class Completion implements AsyncCompletion {
+
+        private final Invocation invocation;
+        private final long startTimeNanos;
+        private final Map<String, String> mdc;
+
+        Completion(Invocation invocation, long startTimeNanos, Map<String, String> mdc) {
+            this.invocation = invocation;
+            this.startTimeNanos = startTimeNanos;
+            this.mdc = mdc;
+        }
+
+        @Override
+        public void onSuccess(Object value) {
+            long executionTimeNanos = System.nanoTime() - startTimeNanos;
+            withMdc(() -> PaymentLoggingAspect.this.onSuccess(invocation, value, executionTimeNanos));
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            long executionTimeNanos = System.nanoTime() - startTimeNanos;
+            withMdc(() -> onFailure(invocation, error, executionTimeNanos));
+        }
+
+        @Override
+        public void onCancel() {
+            long executionTimeNanos = System.nanoTime() - startTimeNanos;
+            long executionTimeMs = executionTimeNanos / 1_000_000;
+            withMdc(() -> {
+                if (invocation.annotation().aggregate()) {
+                    recordAggregate(invocation, executionTimeNanos, OperationAggregator.Outcome.CANCELLED);
+                }
+                log.warn("Payment operation cancelled: {} after {}ms", invocation.operation(), executionTimeMs);
+                if (invocation.annotation().auditEnabled()) {
+                    logAudit(invocation.operation(), invocation.operationId(), "CANCELLED", executionTimeMs, null);
+                }
+            });
+        }
+
+        private void withMdc(Runnable action) {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                // Never let logging break the caller's future or stream
+                log.warn("Failed to log completion of {}", invocation.operation(), e);
+            } finally {
+                if (previous != null) {
+                    MDC.setContextMap(previous);
+                } else {
+                    MDC.clear();
+                }
+            }
+        }
+    }
+
     private PaymentLog getPaymentLogAnnotation(Method method, Class<?> targetClass) {
         PaymentLog methodAnnotation = method.getAnnotation(PaymentLog.class);
         if (methodAnnotation != null) {
@@ -135,10 +384,11 @@ public class PaymentLoggingAspect {
         logData.put("method", methodName);
 
         if (annotation.logParams() && args != null && args.length > 0) {
+            PayloadLimits limits = payloadLimits(annotation);
             Map<String, Object> params = new LinkedHashMap<>();
             for (int i = 0; i < args.length; i++) {
                 String paramName = (paramNames != null && i < paramNames.length) ? paramNames[i] : "arg" + i;
-                params.put(paramName, maskObject(args[i]));
+                params.put(paramName, maskObject(args[i], limits));
             }
             logData.put("params", params);
         }
@@ -158,13 +408,13 @@ public class PaymentLoggingAspect {
         logData.put("execution_time_ms", executionTimeMs);
 
         if (annotation.logResult() && result != null) {
-            logData.put("result", maskObject(result));
+            logData.put("result", maskObject(result, payloadLimits(annotation)));
         }
 
         logAtLevel(annotation.exitLevel(), "Payment operation completed: {}", safeSerialize(logData));
     }
 
-    private void logError(String className, String methodName, String operation, Exception e, long executionTimeMs) {
+    private void logError(String className, String methodName, String operation, Throwable e, long executionTimeMs) {
         Map<String, Object> logData = new LinkedHashMap<>();
         logData.put("phase", "ERROR");
         logData.put("operation", operation);
@@ -187,7 +437,7 @@ public class PaymentLoggingAspect {
         }
     }
 
-    private void logAudit(String operation, String operationId, String status, long executionTimeMs, Exception e) {
+    private void logAudit(String operation, String operationId, String status, long executionTimeMs, Throwable e) {
         Map<String, Object> auditData = new LinkedHashMap<>();
         auditData.put("audit_type", "PAYMENT_OPERATION");
         auditData.put("timestamp", Instant.now().toString());
@@ -206,20 +456,52 @@ public class PaymentLoggingAspect {
         auditLog.info("AUDIT: {}", safeSerialize(auditData));
     }
 
-    private Object maskObject(Object obj) {
+    private PayloadLimits payloadLimits(PaymentLog annotation) {
+        return new PayloadLimits(
+            annotation.maxPayloadBytes(),
+            annotation.maxPayloadDepth(),
+            annotation.maxCollectionElements(),
+            annotation.maxStringLength()
+        ).withDefaults(defaultPayloadLimits);
+    }
+
+    private Object maskObject(Object obj, PayloadLimits limits) {
         if (obj == null) return null;
+        String maskedJson;
         try {
-            String json = objectMapper.writeValueAsString(obj);
-            String maskedJson = dataMasker.mask(json);
-            return objectMapper.readValue(maskedJson, Object.class);
+            maskedJson = dataMasker.mask(writePayload(obj, limits));
         } catch (JsonProcessingException e) {
             return dataMasker.mask(obj.toString());
         }
+        try {
+            return objectMapper.readValue(maskedJson, Object.class);
+        } catch (JsonProcessingException e) {
+            // Masking can break JSON syntax (e.g. a PAN stored as a number)
+            return maskedJson;
+        }
+    }
+
+    private String writePayload(Object obj, PayloadLimits limits) throws JsonProcessingException {
+        LoggingMetrics metrics = LoggingMetrics.current();
+        if (metrics == null) {
+            return boundedJsonWriter.write(obj, limits);
+        }
+        long start = System.nanoTime();
+        String json = boundedJsonWriter.write(obj, limits);
+        metrics.serialization(METRICS_PAYLOAD).record(System.nanoTime() - start, json.length());
+        return json;
     }
 
     private String safeSerialize(Object obj) {
         try {
-            return objectMapper.writeValueAsString(obj);
+            LoggingMetrics metrics = LoggingMetrics.current();
+            if (metrics == null) {
+                return objectMapper.writeValueAsString(obj);
+            }
+            long start = System.nanoTime();
+            String json = objectMapper.writeValueAsString(obj);
+            metrics.serialization(METRICS_RECORD).record(System.nanoTime() - start, json.length());
+            return json;
         } catch (JsonProcessingException e) {
             return obj.toString();
         }
@@ -243,6 +525,17 @@ public class PaymentLoggingAspect {
         }
     }
 
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, PaymentLoggingAspect.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
     public void setDefaultPerformanceThresholdMs(long ms) { this.defaultPerformanceThresholdMs = ms; }
+    public void setAggregateFlushIntervalMs(long aggregateFlushIntervalMs) { this.aggregateFlushIntervalMs = aggregateFlushIntervalMs; }
+    public void setDefaultPayloadLimits(PayloadLimits limits) { this.defaultPayloadLimits = limits != null ? limits : PayloadLimits.DEFAULT; }
 }
@@ -0,0 +1,46 @@
+package com.bank.logging.aspect;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Reactor support, only loaded when Reactor is on the classpath. Callbacks are attached as
+ * operators on the same pipeline, so no scheduler hop is added.
+ */
+final class ReactiveCompletion {
+
+    private ReactiveCompletion() {}
+
+    static boolean isReactive(Object result) {
+        return result instanceof Mono<?> || result instanceof Flux<?>;
+    }
+
+    /**
+     * Decorates the publisher; each subscription gets its own completion from {@code completions}.
+     */
+    static Object track(Object publisher, Supplier<AsyncCompletion> completions) {
+        if (publisher instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                AsyncCompletion completion = completions.get();
+                return mono
+                    .doOnSuccess(completion::onSuccess)
+                    .doOnError(completion::onError)
+                    .doOnCancel(completion::onCancel);
+            });
+        }
+        Flux<?> flux = (Flux<?>) publisher;
+        return Flux.defer(() -> {
+            AsyncCompletion completion = completions.get();
+            // Signals are serialized per subscription; elements are counted, not logged
+            long[] elements = {0};
+            return flux
+                .doOnNext(element -> elements[0]++)
+                .doOnComplete(() -> completion.onSuccess(Map.of("elements", elements[0])))
+                .doOnError(completion::onError)
+                .doOnCancel(completion::onCancel);
+        });
+    }
+}
@@ -1,6 +1,9 @@
 package com.bank.logging.filter;
 
 import com.bank.logging.mdc.MdcKeys;
+import com.bank.logging.metrics.LoggingMetrics;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,40 +13,135 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
+/**
+ * Sets up the MDC for each request.
+ * <p>
+ * For async requests ({@code Callable}, {@code DeferredResult}, {@code StreamingResponseBody})
+ * the context captured on the initial dispatch is bound again on async dispatches and on the
+ * threads running {@code Callable} tasks, and cleared afterwards. Request latency is measured
+ * from the initial dispatch until the request actually completes.
+ */
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class CorrelationIdFilter extends OncePerRequestFilter {
 
+    public static final String CONTEXT_ATTRIBUTE = CorrelationIdFilter.class.getName() + ".CONTEXT";
+    public static final String START_TIME_ATTRIBUTE = CorrelationIdFilter.class.getName() + ".START_TIME";
+    public static final String DURATION_ATTRIBUTE = CorrelationIdFilter.class.getName() + ".DURATION_MS";
+
+    private static final String LISTENER_ATTRIBUTE = CorrelationIdFilter.class.getName() + ".LISTENER";
+    private static final Object CALLABLE_INTERCEPTOR_KEY = CorrelationIdFilter.class.getName();
+    private static final CallableProcessingInterceptor CALLABLE_INTERCEPTOR = new ContextCallableInterceptor();
+
+    private static final String[] CONTEXT_KEYS = {
+        MdcKeys.CORRELATION_ID, MdcKeys.TRANSACTION_ID, MdcKeys.CLIENT_IP,
+        MdcKeys.REQUEST_URI, MdcKeys.REQUEST_METHOD, MdcKeys.USER_ID
+    };
+
     private static final Logger log = LoggerFactory.getLogger(CorrelationIdFilter.class);
 
     private boolean includeClientIp = true;
     private boolean includeRequestUri = true;
     private boolean generateIfMissing = true;
     private String correlationIdHeader = MdcKeys.HEADER_CORRELATION_ID;
+    private long slowRequestThresholdMs = 0L;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
+        @SuppressWarnings("unchecked")
+        Map<String, String> context = isAsyncDispatch(request)
+            ? (Map<String, String>) request.getAttribute(CONTEXT_ATTRIBUTE)
+            : null;
         try {
-            setupMdc(request);
-            
-            String correlationId = MDC.get(MdcKeys.CORRELATION_ID);
-            if (correlationId != null) {
-                response.setHeader(correlationIdHeader, correlationId);
+            if (context != null) {
+                bindContext(context);
+            } else {
+                long startNanos = System.nanoTime();
+                request.setAttribute(START_TIME_ATTRIBUTE, startNanos);
+                setupMdc(request);
+                context = captureContext();
+                LoggingMetrics metrics = LoggingMetrics.current();
+                if (metrics != null) {
+                    metrics.mdcSetup().record(System.nanoTime() - startNanos, context.size());
+                }
+                request.setAttribute(CONTEXT_ATTRIBUTE, context);
+                // Must be in place before the handler returns its Callable, so before
+                // isAsyncStarted() can tell. Spring MVC creates the async manager for every
+                // request anyway; the interceptor is shared and reads the context from the request.
+                WebAsyncUtils.getAsyncManager(request)
+                    .registerCallableInterceptor(CALLABLE_INTERCEPTOR_KEY, CALLABLE_INTERCEPTOR);
+
+                String correlationId = MDC.get(MdcKeys.CORRELATION_ID);
+                if (correlationId != null) {
+                    response.setHeader(correlationIdHeader, correlationId);
+                }
             }
 
             filterChain.doFilter(request, response);
 
         } finally {
+            if (isAsyncStarted(request)) {
+                if (request.getAttribute(LISTENER_ATTRIBUTE) == null) {
+                    request.setAttribute(LISTENER_ATTRIBUTE, Boolean.TRUE);
+                    request.getAsyncContext().addListener(new CompletionListener(context, request, response));
+                }
+            } else if (request.getAttribute(LISTENER_ATTRIBUTE) == null) {
+                recordCompletion(request, response, false);
+            }
             clearMdc();
         }
     }
 
+    private Map<String, String> captureContext() {
+        Map<String, String> context = new HashMap<>(CONTEXT_KEYS.length * 2);
+        for (String key : CONTEXT_KEYS) {
+            String value = MDC.get(key);
+            if (value != null) {
+                context.put(key, value);
+            }
+        }
+        return context;
+    }
+
+    private static void bindContext(Map<String, String> context) {
+        context.forEach(MDC::put);
+    }
+
+    private void recordCompletion(HttpServletRequest request, HttpServletResponse response, boolean async) {
+        Object startTime = request.getAttribute(START_TIME_ATTRIBUTE);
+        if (!(startTime instanceof Long startNanos)) {
+            return;
+        }
+        long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+        request.setAttribute(DURATION_ATTRIBUTE, durationMs);
+
+        if (slowRequestThresholdMs > 0 && durationMs > slowRequestThresholdMs) {
+            log.warn("Slow request {} {}: {}ms (threshold: {}ms, async={})", request.getMethod(),
+                request.getRequestURI(), durationMs, slowRequestThresholdMs, async);
+        } else if (log.isDebugEnabled()) {
+            log.debug("Request completed {} {}: status={} in {}ms (async={})", request.getMethod(),
+                request.getRequestURI(), response.getStatus(), durationMs, async);
+        }
+    }
+
     private void setupMdc(HttpServletRequest request) {
         // Correlation ID
         String correlationId = request.getHeader(correlationIdHeader);
@@ -101,13 +199,73 @@ public class CorrelationIdFilter extends OncePerRequestFilter {
         }
     }
 
-    private void clearMdc() {
-        MDC.remove(MdcKeys.CORRELATION_ID);
-        MDC.remove(MdcKeys.TRANSACTION_ID);
-        MDC.remove(MdcKeys.CLIENT_IP);
-        MDC.remove(MdcKeys.REQUEST_URI);
-        MDC.remove(MdcKeys.REQUEST_METHOD);
-        MDC.remove(MdcKeys.USER_ID);
+    private static void clearMdc() {
+        for (String key : CONTEXT_KEYS) {
+            MDC.remove(key);
+        }
+    }
+
+    /**
+     * Binds the request context on the executor thread running a {@code Callable} or
+     * {@code StreamingResponseBody}, and clears it once the task is done.
+     */
+    private static final class ContextCallableInterceptor implements CallableProcessingInterceptor {
+
+        @Override
+        public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> context = (Map<String, String>) request.getAttribute(CONTEXT_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+            if (context != null) {
+                bindContext(context);
+            }
+        }
+
+        @Override
+        public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+            clearMdc();
+        }
+    }
+
+    /**
+     * Records latency when an async request completes, with the request context bound on the
+     * completing thread.
+     */
+    private final class CompletionListener implements AsyncListener {
+
+        private final Map<String, String> context;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        CompletionListener(Map<String, String> context, HttpServletRequest request, HttpServletResponse response) {
+            this.context = context;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            bindContext(context);
+            try {
+                recordCompletion(request, response, true);
+            } finally {
+                clearMdc();
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Listeners are dropped when async processing is restarted
+            event.getAsyncContext().addListener(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
     }
 
     // Setters
@@ -115,4 +273,5 @@ public class CorrelationIdFilter extends OncePerRequestFilter {
     public void setIncludeRequestUri(boolean includeRequestUri) { this.includeRequestUri = includeRequestUri; }
     public void setGenerateIfMissing(boolean generateIfMissing) { this.generateIfMissing = generateIfMissing; }
     public void setCorrelationIdHeader(String correlationIdHeader) { this.correlationIdHeader = correlationIdHeader; }
+    public void setSlowRequestThresholdMs(long slowRequestThresholdMs) { this.slowRequestThresholdMs = slowRequestThresholdMs; }
 }
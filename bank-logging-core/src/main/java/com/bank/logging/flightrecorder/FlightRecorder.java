@@ -0,0 +1,550 @@
+package com.bank.logging.flightrecorder;
+
+import ch.qos.logback.classic.Level;
+import com.bank.logging.masking.DataMasker;
+import com.bank.logging.masking.MaskingJsonLayout;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-size ring of recent log events in a memory-mapped file.
+ * <p>
+ * Events are appended in a compact binary form. Because the file is mapped, its content
+ * survives the process being killed (OOM killer, SIGKILL) and is picked up again on the next
+ * start; dumps decode the ring back into events and render them with {@link MaskingJsonLayout}.
+ * <p>
+ * The data area is split into stripes, each an independent ring with its own lock; a thread
+ * always writes to the same stripe, so logging threads only contend when they share one.
+ * Sequence numbers are global and reads merge the stripes back into logging order. Reads
+ * decode the mapped file in place, without copying it, and drop records overwritten while
+ * being read.
+ * <p>
+ * File layout: a 64-byte header, one 32-byte header per stripe slot, then the stripes.
+ * <pre>
+ * header: int magic, int version, long capacity, int stripes
+ * stripe: long head, long tail, long used, long sequence
+ * record: int length, long sequence, long timestamp, byte level,
+ *         str16 logger, str16 thread, str16 correlationId, str16 transactionId,
+ *         str32 message, byte paramCount, str16 param...,
+ *         str16 throwableClass [, str32 throwableMessage, byte frameCount, str16 frame...]
+ * </pre>
+ * {@code str16}/{@code str32} are UTF-8 bytes prefixed by an unsigned short / int length, with
+ * {@code 0xFFFF} / {@code -1} for null. Parameters are stored rendered and substituted into
+ * the message when decoding. A record length of {@code -1}, or fewer than 4 bytes left before
+ * the end of a stripe, means the stripe wraps to offset 0.
+ */
+public class FlightRecorder implements Closeable {
+
+    public static final int MAX_STRIPES = 16;
+    public static final int HEADER_SIZE = 64 + 32 * MAX_STRIPES;
+    public static final long DEFAULT_CAPACITY = 16L * 1024 * 1024;
+
+    static final int MAGIC = 0x424C4652; // "BLFR"
+    static final int VERSION = 2;
+    static final int WRAP = -1;
+    static final int NULL16 = 0xFFFF;
+    static final int MAX_FRAMES = 16;
+    static final int MAX_PARAMS = 32;
+    static final int MAX_SHORT_STRING = 1024;
+
+    private static final long MIN_CAPACITY = 64 * 1024;
+    private static final long MIN_STRIPE_CAPACITY = 1024 * 1024;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_STRIPES = 16;
+    private static final Level[] LEVELS = {Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Stripe[] stripes;
+    private final DataMasker dataMasker;
+    private final ThreadLocal<RecordEncoder> encoders;
+    private final AtomicLong sequence;
+    private final LongAdder droppedEvents = new LongAdder();
+    private int maxMessageLength = 4096;
+
+    private FlightRecorder(Path file, FileChannel channel, MappedByteBuffer buffer, int stripeCount,
+                           int stripeCapacity, DataMasker dataMasker) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.dataMasker = dataMasker;
+        this.encoders = ThreadLocal.withInitial(RecordEncoder::new);
+        this.stripes = new Stripe[stripeCount];
+        long lastSequence = 0;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(buffer, i, stripeCapacity);
+            lastSequence = Math.max(lastSequence, stripes[i].sequence);
+        }
+        this.sequence = new AtomicLong(lastSequence);
+    }
+
+    /**
+     * Opens the ring file, keeping the events of a previous run when the file is compatible.
+     *
+     * @param dataMasker masks messages before they are written, or {@code null} to store them
+     *                   as logged and mask only when dumping
+     */
+    public static FlightRecorder open(Path file, long capacity, DataMasker dataMasker) throws IOException {
+        int stripes = Integer.highestOneBit(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+        while (stripes > 1 && capacity / stripes < MIN_STRIPE_CAPACITY) {
+            stripes /= 2;
+        }
+        return open(file, capacity, stripes, dataMasker);
+    }
+
+    /**
+     * Same as {@link #open(Path, long, DataMasker)} with an explicit number of stripes, a power
+     * of two up to {@link #MAX_STRIPES}. A compatible file keeps the stripe count it was
+     * written with.
+     */
+    public static FlightRecorder open(Path file, long capacity, int stripes, DataMasker dataMasker) throws IOException {
+        if (capacity < MIN_CAPACITY || capacity > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException("Flight recorder capacity must be between 64 KB and 2 GB");
+        }
+        if (!isValidStripeCount(stripes, capacity)) {
+            throw new IllegalArgumentException("Flight recorder stripes must be a power of two up to "
+                + MAX_STRIPES + ", with at least 16 KB each");
+        }
+        boolean created = !Files.exists(file);
+        if (created) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.createFile(file);
+            // Events may hold unmasked data when masking is deferred to dump time
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+            }
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int existing = !created && channel.size() == HEADER_SIZE + capacity ? validStripes(channel, capacity) : 0;
+            if (existing == 0) {
+                channel.truncate(0);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+            if (existing == 0) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putLong(OFFSET_CAPACITY, capacity);
+                buffer.putInt(OFFSET_STRIPES, stripes);
+            } else {
+                stripes = existing;
+            }
+            return new FlightRecorder(file, channel, buffer, stripes, (int) (capacity / stripes), dataMasker);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static boolean isValidStripeCount(int stripes, long capacity) {
+        return stripes > 0 && stripes <= MAX_STRIPES && Integer.bitCount(stripes) == 1
+            && capacity / stripes >= 16 * 1024;
+    }
+
+    // Stripe count of a compatible file, or 0
+    private static int validStripes(FileChannel channel, long capacity) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getLong(OFFSET_CAPACITY) != capacity) {
+            return 0;
+        }
+        int stripes = header.getInt(OFFSET_STRIPES);
+        if (!isValidStripeCount(stripes, capacity)) {
+            return 0;
+        }
+        long stripeCapacity = capacity / stripes;
+        for (int i = 0; i < stripes; i++) {
+            int at = Stripe.headerOffset(i);
+            long head = header.getLong(at);
+            long tail = header.getLong(at + 8);
+            long used = header.getLong(at + 16);
+            if (head < 0 || head >= stripeCapacity || tail < 0 || tail >= stripeCapacity
+                || used < 0 || used > stripeCapacity) {
+                return 0;
+            }
+        }
+        return stripes;
+    }
+
+    /**
+     * Appends an event, evicting the oldest ones of the thread's stripe as needed.
+     */
+    public void record(long timestamp, Level level, String logger, String thread, String correlationId,
+                       String transactionId, String message, Throwable throwable) {
+        record(timestamp, level, logger, thread, correlationId, transactionId, message, null, throwable);
+    }
+
+    /**
+     * Appends an event whose message is an SLF4J format. Without masking, parameters are
+     * rendered and stored as is, and the message is only formatted when decoding. With masking,
+     * the message is formatted first so that rules see values next to their context
+     * ({@code cvv={}}). A trailing {@link Throwable} parameter is used as the throwable when
+     * none is given, as SLF4J does.
+     */
+    public void record(long timestamp, Level level, String logger, String thread, String correlationId,
+                       String transactionId, String message, Object[] params, Throwable throwable) {
+        int paramCount = params != null ? params.length : 0;
+        if (throwable == null && paramCount > 0 && params[paramCount - 1] instanceof Throwable last) {
+            throwable = last;
+            paramCount--;
+        }
+        if (dataMasker != null && paramCount > 0) {
+            message = MessageFormatter.basicArrayFormat(message, Arrays.copyOf(params, paramCount));
+            paramCount = 0;
+        }
+        paramCount = Math.min(paramCount, MAX_PARAMS);
+        RecordEncoder encoder = encoders.get();
+        encoder.reset();
+        encoder.putLong(0); // sequence, set under the lock
+        encoder.putLong(timestamp);
+        encoder.putByte(levelCode(level));
+        encoder.putString16(logger);
+        encoder.putString16(thread);
+        encoder.putString16(correlationId);
+        encoder.putString16(transactionId);
+        encoder.putString32(mask(message), maxMessageLength);
+        encoder.putByte((byte) paramCount);
+        for (int i = 0; i < paramCount; i++) {
+            encoder.putString16(render(params[i]));
+        }
+        if (throwable == null) {
+            encoder.putString16(null);
+        } else {
+            encoder.putString16(throwable.getClass().getName());
+            encoder.putString32(mask(throwable.getMessage()), maxMessageLength);
+            StackTraceElement[] frames = throwable.getStackTrace();
+            int frameCount = Math.min(frames.length, MAX_FRAMES);
+            encoder.putByte((byte) frameCount);
+            for (int i = 0; i < frameCount; i++) {
+                encoder.putString16(frames[i].toString());
+            }
+        }
+        Stripe stripe = stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+        if (!stripe.append(encoder, sequence)) {
+            droppedEvents.increment();
+        }
+    }
+
+    /**
+     * Number of events not recorded because their encoded form exceeds half a stripe.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    private String mask(String value) {
+        return dataMasker != null && value != null ? dataMasker.mask(value) : value;
+    }
+
+    // Same rendering as SLF4J's MessageFormatter, including arrays
+    private static String render(Object param) {
+        try {
+            if (param == null || !param.getClass().isArray()) {
+                return String.valueOf(param);
+            }
+            String deep = Arrays.deepToString(new Object[] {param});
+            return deep.substring(1, deep.length() - 1);
+        } catch (Throwable t) {
+            return "[FAILED toString()]";
+        }
+    }
+
+    /**
+     * Decodes the recorded events, oldest first.
+     */
+    public void forEach(Consumer<RecordedEvent> action) {
+        RecordDecoder.Cursor[] cursors = new RecordDecoder.Cursor[stripes.length];
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        for (int i = 0; i < stripes.length; i++) {
+            cursors[i] = new RecordDecoder.Cursor(stripes[i], view);
+        }
+        while (true) {
+            RecordDecoder.Cursor oldest = null;
+            for (RecordDecoder.Cursor cursor : cursors) {
+                RecordedEvent next = cursor.peek();
+                if (next != null && (oldest == null || next.getSequence() < oldest.peek().getSequence())) {
+                    oldest = cursor;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            action.accept(oldest.next());
+        }
+    }
+
+    /**
+     * Writes the recorded events as masked NDJSON.
+     */
+    public int dump(Writer writer) throws IOException {
+        MaskingJsonLayout layout = new MaskingJsonLayout();
+        layout.setDataMasker(dataMasker);
+        int[] count = {0};
+        IOException[] failure = {null};
+        forEach(event -> {
+            if (failure[0] == null) {
+                try {
+                    writer.write(layout.doLayout(event));
+                    count[0]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        writer.flush();
+        return count[0];
+    }
+
+    /**
+     * Writes a timestamped NDJSON dump into {@code directory} and returns its path.
+     */
+    public Path dumpTo(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String name = "flight-" + Instant.now().toString().replace(':', '-') + ".ndjson";
+        Path target = directory.resolve(name);
+        try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            dump(writer);
+        }
+        return target;
+    }
+
+    /**
+     * Dumps the ring when a thread dies from a {@link VirtualMachineError} (e.g. OutOfMemoryError),
+     * then delegates to the previous default handler.
+     */
+    public void dumpOnFatalError(Path directory) {
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, error) -> {
+            if (error instanceof VirtualMachineError) {
+                try {
+                    dumpTo(directory);
+                } catch (IOException | RuntimeException | VirtualMachineError ignored) {
+                    // Best effort: the JVM may be unable to allocate
+                }
+            }
+            if (previous != null) {
+                previous.uncaughtException(thread, error);
+            } else {
+                System.err.print("Exception in thread \"" + thread.getName() + "\" ");
+                error.printStackTrace();
+            }
+        });
+    }
+
+    public boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (stripe.snapshot().used() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    static byte levelCode(Level level) {
+        return switch (level.toInt()) {
+            case Level.TRACE_INT -> 0;
+            case Level.DEBUG_INT -> 1;
+            case Level.INFO_INT -> 2;
+            case Level.WARN_INT -> 3;
+            default -> 4;
+        };
+    }
+
+    static Level level(int code) {
+        return LEVELS[Math.max(0, Math.min(code, LEVELS.length - 1))];
+    }
+
+    public void setMaxMessageLength(int maxMessageLength) { this.maxMessageLength = maxMessageLength; }
+
+    /**
+     * One ring of the data area with its header slot.
+     */
+    static final class Stripe {
+
+        private final MappedByteBuffer buffer;
+        private final int headerAt;
+        private final int base;
+        private final int capacity;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long head;
+        private long tail;
+        private long used;
+        private long sequence;
+        // Highest sequence evicted so far: readers drop records at or below it
+        private volatile long evicted;
+
+        Stripe(MappedByteBuffer buffer, int index, int capacity) {
+            this.buffer = buffer;
+            this.headerAt = headerOffset(index);
+            this.base = HEADER_SIZE + index * capacity;
+            this.capacity = capacity;
+            this.head = buffer.getLong(headerAt);
+            this.tail = buffer.getLong(headerAt + 8);
+            this.used = buffer.getLong(headerAt + 16);
+            this.sequence = buffer.getLong(headerAt + 24);
+        }
+
+        static int headerOffset(int index) {
+            return 64 + 32 * index;
+        }
+
+        // false when the record is larger than half the stripe and was not written
+        boolean append(RecordEncoder encoder, AtomicLong sequences) {
+            int length = encoder.length();
+            if (length > capacity / 2) {
+                return false;
+            }
+            lock.lock();
+            try {
+                if (capacity - head < length) {
+                    // Not enough room before the end: waste it and wrap
+                    int waste = (int) (capacity - head);
+                    evictUntilFree(waste);
+                    if (waste >= 4) {
+                        VarHandle.storeStoreFence();
+                        buffer.putInt(base + (int) head, WRAP);
+                    }
+                    used += waste;
+                    head = 0;
+                }
+                evictUntilFree(length);
+                // Persist eviction before overwriting, so a crash mid-write leaves a readable ring
+                buffer.putLong(headerAt + 8, tail);
+                buffer.putLong(headerAt + 16, used);
+                // Readers must see the eviction before any byte of the new record
+                VarHandle.storeStoreFence();
+
+                sequence = sequences.incrementAndGet();
+                encoder.setSequence(sequence);
+                encoder.setLength(length);
+                buffer.put(base + (int) head, encoder.bytes(), 0, length);
+                head += length;
+                used += length;
+                if (head == capacity) {
+                    head = 0;
+                }
+                buffer.putLong(headerAt, head);
+                buffer.putLong(headerAt + 16, used);
+                buffer.putLong(headerAt + 24, sequence);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void evictUntilFree(long needed) {
+            while (capacity - used < needed && used > 0) {
+                int remaining = (int) (capacity - tail);
+                int length = remaining < 4 ? WRAP : buffer.getInt(base + (int) tail);
+                if (length == WRAP) {
+                    used -= remaining;
+                    tail = 0;
+                } else {
+                    evicted = buffer.getLong(base + (int) tail + 4);
+                    used -= length;
+                    tail += length;
+                    if (tail == capacity) {
+                        tail = 0;
+                    }
+                }
+            }
+            if (used == 0) {
+                tail = head;
+            }
+        }
+
+        Snapshot snapshot() {
+            lock.lock();
+            try {
+                return new Snapshot(tail, used, sequence);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Whether a record decoded with {@code sequence} may have been overwritten while read.
+         */
+        boolean isEvicted(long sequence) {
+            // Orders the record reads before the read of evicted, pairing with the writer's fence
+            VarHandle.loadLoadFence();
+            return sequence <= evicted;
+        }
+
+        int base() {
+            return base;
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        record Snapshot(long tail, long used, long lastSequence) {
+        }
+    }
+
+    // Command line: decodes a ring file left by a previous process
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: FlightRecorder RING_FILE > dump.ndjson");
+            System.exit(2);
+        }
+        Path file = Path.of(args[0]);
+        long capacity = Files.size(file) - HEADER_SIZE;
+        // open() resets incompatible files, which must not happen to a file being inspected
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (capacity <= 0 || validStripes(channel, capacity) == 0) {
+                System.err.println("Not a flight recorder file: " + file);
+                System.exit(1);
+            }
+        }
+        try (FlightRecorder recorder = open(file, capacity, null)) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            int count = recorder.dump(out);
+            System.err.println(count + " events");
+        }
+    }
+}
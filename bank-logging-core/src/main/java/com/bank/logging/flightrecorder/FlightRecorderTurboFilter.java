@@ -0,0 +1,39 @@
+package com.bank.logging.flightrecorder;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.bank.logging.mdc.MdcKeys;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Feeds every logging call at or above {@code level} into a {@link FlightRecorder}, whether
+ * or not the logger is enabled for it. Never changes the filtering decision.
+ * <p>
+ * Calls below the logger's level, normally almost free, therefore pay for encoding (and for
+ * formatting and masking with mask-on-write): keep {@code level} above the chatty levels.
+ */
+public class FlightRecorderTurboFilter extends TurboFilter {
+
+    private final FlightRecorder recorder;
+    private Level level = Level.DEBUG;
+
+    public FlightRecorderTurboFilter(FlightRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isXxxEnabled() checks
+        if (format == null || !isStarted() || !level.isGreaterOrEqual(this.level)) {
+            return FilterReply.NEUTRAL;
+        }
+        recorder.record(System.currentTimeMillis(), level, logger.getName(), Thread.currentThread().getName(),
+            MDC.get(MdcKeys.CORRELATION_ID), MDC.get(MdcKeys.TRANSACTION_ID), format, params, t);
+        return FilterReply.NEUTRAL;
+    }
+
+    public void setLevel(Level level) { this.level = level; }
+}
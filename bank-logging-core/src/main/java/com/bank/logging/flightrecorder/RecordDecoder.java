@@ -0,0 +1,167 @@
+package com.bank.logging.flightrecorder;
+
+import org.slf4j.helpers.MessageFormatter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Walks a stripe of the ring from its oldest record and decodes each one.
+ */
+final class RecordDecoder {
+
+    // length, sequence, timestamp, level, the smallest possible strings and the parameter count
+    private static final int MIN_RECORD = 4 + 8 + 8 + 1 + 2 * 4 + 4 + 1 + 2;
+
+    // Re-reads from the current tail when writers lap the cursor, a bounded number of times
+    private static final int MAX_RESTARTS = 8;
+
+    private RecordDecoder() {}
+
+    /**
+     * Reads one stripe in place through a read-only view of the mapped file. Records evicted
+     * while being read are dropped and the cursor resumes from the stripe's new tail, skipping
+     * what was already returned.
+     */
+    static final class Cursor {
+
+        private final FlightRecorder.Stripe stripe;
+        private final ByteBuffer view;
+        private byte[] scratch = new byte[256];
+        private int position;
+        private long remaining;
+        private long lastSequence;
+        private long returned;
+        private int restarts;
+        private RecordedEvent next;
+
+        Cursor(FlightRecorder.Stripe stripe, ByteBuffer view) {
+            this.stripe = stripe;
+            this.view = view;
+            seek();
+        }
+
+        RecordedEvent peek() {
+            if (next == null) {
+                next = advance();
+            }
+            return next;
+        }
+
+        RecordedEvent next() {
+            RecordedEvent event = peek();
+            next = null;
+            if (event != null) {
+                returned = event.getSequence();
+            }
+            return event;
+        }
+
+        private void seek() {
+            FlightRecorder.Stripe.Snapshot snapshot = stripe.snapshot();
+            position = (int) snapshot.tail();
+            remaining = snapshot.used();
+            lastSequence = snapshot.lastSequence();
+        }
+
+        private RecordedEvent advance() {
+            int capacity = stripe.capacity();
+            while (remaining > 0) {
+                int left = capacity - position;
+                int length = left < 4 ? FlightRecorder.WRAP : view.getInt(stripe.base() + position);
+                if (length == FlightRecorder.WRAP) {
+                    remaining -= left;
+                    position = 0;
+                    continue;
+                }
+                RecordedEvent event = null;
+                if (length >= MIN_RECORD && length <= remaining && length <= left) {
+                    try {
+                        event = decodeRecord(view.slice(stripe.base() + position + 4, length - 4));
+                    } catch (RuntimeException e) {
+                        // Overwritten while read, or torn by a crash
+                    }
+                }
+                if (event == null || event.getSequence() > lastSequence || stripe.isEvicted(event.getSequence())) {
+                    if (!restart()) {
+                        return null;
+                    }
+                    continue;
+                }
+                position += length;
+                remaining -= length;
+                if (position == capacity) {
+                    position = 0;
+                }
+                if (event.getSequence() > returned) {
+                    return event;
+                }
+            }
+            return null;
+        }
+
+        private boolean restart() {
+            long before = lastSequence;
+            seek();
+            // Nothing written since the snapshot: a torn write from a crash, nothing after it
+            // can be trusted
+            if (lastSequence == before || ++restarts > MAX_RESTARTS) {
+                remaining = 0;
+                return false;
+            }
+            return true;
+        }
+
+        private RecordedEvent decodeRecord(ByteBuffer record) {
+            long sequence = record.getLong();
+            long timestamp = record.getLong();
+            int level = record.get();
+            String logger = string16(record);
+            String thread = string16(record);
+            String correlationId = string16(record);
+            String transactionId = string16(record);
+            String message = string32(record);
+            int paramCount = record.get() & 0xFF;
+            if (paramCount > 0) {
+                Object[] params = new Object[paramCount];
+                for (int i = 0; i < paramCount; i++) {
+                    params[i] = string16(record);
+                }
+                message = MessageFormatter.arrayFormat(message, params, null).getMessage();
+            }
+            String throwableClass = string16(record);
+            RecordedThrowableProxy throwable = null;
+            if (throwableClass != null) {
+                String throwableMessage = string32(record);
+                String[] frames = new String[record.get() & 0xFF];
+                for (int i = 0; i < frames.length; i++) {
+                    frames[i] = string16(record);
+                }
+                throwable = new RecordedThrowableProxy(throwableClass, throwableMessage, frames);
+            }
+            return new RecordedEvent(sequence, timestamp, FlightRecorder.level(level), logger, thread,
+                correlationId, transactionId, message, throwable);
+        }
+
+        private String string16(ByteBuffer record) {
+            int length = record.getShort() & 0xFFFF;
+            return length == FlightRecorder.NULL16 ? null : string(record, length);
+        }
+
+        private String string32(ByteBuffer record) {
+            int length = record.getInt();
+            return length < 0 ? null : string(record, length);
+        }
+
+        private String string(ByteBuffer record, int length) {
+            if (length > record.remaining()) {
+                throw new IllegalStateException("Corrupt record");
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            record.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.bank.logging.flightrecorder;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread scratch buffer encoding one record without allocating.
+ */
+final class RecordEncoder {
+
+    private byte[] bytes = new byte[1024];
+    private int position;
+
+    void reset() {
+        position = 4; // length, set once known
+    }
+
+    int length() {
+        return position;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    void setLength(int length) {
+        putInt(0, length);
+    }
+
+    void setSequence(long sequence) {
+        for (int i = 0; i < 8; i++) {
+            bytes[4 + i] = (byte) (sequence >>> (56 - 8 * i));
+        }
+    }
+
+    void putByte(byte value) {
+        ensure(1);
+        bytes[position++] = value;
+    }
+
+    void putLong(long value) {
+        ensure(8);
+        for (int i = 0; i < 8; i++) {
+            bytes[position++] = (byte) (value >>> (56 - 8 * i));
+        }
+    }
+
+    void putString16(String value) {
+        if (value == null) {
+            putShort(FlightRecorder.NULL16);
+            return;
+        }
+        int lengthAt = position;
+        putShort(0);
+        int length = putUtf8(value, FlightRecorder.MAX_SHORT_STRING);
+        bytes[lengthAt] = (byte) (length >>> 8);
+        bytes[lengthAt + 1] = (byte) length;
+    }
+
+    void putString32(String value, int maxChars) {
+        if (value == null) {
+            ensure(4);
+            putInt(position, -1);
+            position += 4;
+            return;
+        }
+        int lengthAt = position;
+        ensure(4);
+        position += 4;
+        putInt(lengthAt, putUtf8(value, maxChars));
+    }
+
+    private void putShort(int value) {
+        ensure(2);
+        bytes[position++] = (byte) (value >>> 8);
+        bytes[position++] = (byte) value;
+    }
+
+    private void putInt(int at, int value) {
+        bytes[at] = (byte) (value >>> 24);
+        bytes[at + 1] = (byte) (value >>> 16);
+        bytes[at + 2] = (byte) (value >>> 8);
+        bytes[at + 3] = (byte) value;
+    }
+
+    // Encodes at most maxChars chars, never splitting a surrogate pair
+    private int putUtf8(String value, int maxChars) {
+        int chars = Math.min(value.length(), maxChars);
+        if (chars < value.length() && chars > 0 && Character.isHighSurrogate(value.charAt(chars - 1))) {
+            chars--;
+        }
+        ensure(chars * 3);
+        int start = position;
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[position++] = '?';
+            } else {
+                bytes[position++] = (byte) (0xE0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position - start;
+    }
+
+    private void ensure(int extra) {
+        if (position + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+        }
+    }
+}
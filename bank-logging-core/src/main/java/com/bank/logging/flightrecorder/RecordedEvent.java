@@ -0,0 +1,46 @@
+package com.bank.logging.flightrecorder;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.bank.logging.mdc.MdcKeys;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Event read back from the ring, usable with any Logback layout.
+ */
+public class RecordedEvent extends LoggingEvent {
+
+    private final long sequence;
+    private final RecordedThrowableProxy throwable;
+
+    RecordedEvent(long sequence, long timestamp, Level level, String logger, String thread, String correlationId,
+                  String transactionId, String message, RecordedThrowableProxy throwable) {
+        this.sequence = sequence;
+        this.throwable = throwable;
+        setTimeStamp(timestamp);
+        setLevel(level);
+        setLoggerName(logger);
+        setThreadName(thread);
+        setMessage(message);
+        Map<String, String> mdc = new HashMap<>(4);
+        if (correlationId != null) {
+            mdc.put(MdcKeys.CORRELATION_ID, correlationId);
+        }
+        if (transactionId != null) {
+            mdc.put(MdcKeys.TRANSACTION_ID, transactionId);
+        }
+        setMDCPropertyMap(mdc);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public IThrowableProxy getThrowableProxy() {
+        return throwable;
+    }
+}
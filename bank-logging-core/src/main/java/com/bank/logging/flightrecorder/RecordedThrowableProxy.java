@@ -0,0 +1,87 @@
+package com.bank.logging.flightrecorder;
+
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
+
+/**
+ * Throwable summary stored with a recorded event: class, message and the top frames.
+ */
+final class RecordedThrowableProxy implements IThrowableProxy {
+
+    private final String className;
+    private final String message;
+    private final StackTraceElementProxy[] frames;
+
+    RecordedThrowableProxy(String className, String message, String[] frames) {
+        this.className = className;
+        this.message = message;
+        this.frames = new StackTraceElementProxy[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            this.frames[i] = new StackTraceElementProxy(parseFrame(frames[i]));
+        }
+    }
+
+    // Reverses StackTraceElement.toString(): "[module/]pkg.Class.method(File.java:12)"
+    static StackTraceElement parseFrame(String frame) {
+        int open = frame.lastIndexOf('(');
+        int close = frame.lastIndexOf(')');
+        String qualified = open > 0 ? frame.substring(frame.indexOf('/') + 1, open) : frame;
+        int dot = qualified.lastIndexOf('.');
+        String declaringClass = dot > 0 ? qualified.substring(0, dot) : qualified;
+        String method = dot > 0 ? qualified.substring(dot + 1) : "";
+        String fileName = null;
+        int line = -1;
+        if (open > 0 && close > open) {
+            String location = frame.substring(open + 1, close);
+            int colon = location.lastIndexOf(':');
+            if (colon > 0) {
+                fileName = location.substring(0, colon);
+                try {
+                    line = Integer.parseInt(location.substring(colon + 1));
+                } catch (NumberFormatException e) {
+                    line = -1;
+                }
+            } else if ("Native Method".equals(location)) {
+                line = -2;
+            } else if (!"Unknown Source".equals(location)) {
+                fileName = location;
+            }
+        }
+        return new StackTraceElement(declaringClass, method, fileName, line);
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String getClassName() {
+        return className;
+    }
+
+    @Override
+    public StackTraceElementProxy[] getStackTraceElementProxyArray() {
+        return frames;
+    }
+
+    @Override
+    public int getCommonFrames() {
+        return 0;
+    }
+
+    @Override
+    public IThrowableProxy getCause() {
+        return null;
+    }
+
+    @Override
+    public IThrowableProxy[] getSuppressed() {
+        return new IThrowableProxy[0];
+    }
+
+    @Override
+    public boolean isCyclic() {
+        return false;
+    }
+}
@@ -1,76 +1,214 @@
 package com.bank.logging.masking;
 
+import com.bank.logging.metrics.LatencyStats;
+import com.bank.logging.metrics.LoggingMetrics;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class DataMasker {
 
-    private final List<MaskingRule> rules;
+    private static volatile DataMasker current;
+
+    private final List<Rule> rules;
+    private final int builtInRuleCount;
+    private RuleStats ruleStats;
 
     public DataMasker() {
-        this.rules = initializeDefaultRules();
+        this(null);
     }
 
-    public DataMasker(List<MaskingRule> customRules) {
+    public DataMasker(List<? extends Rule> customRules) {
         this.rules = initializeDefaultRules();
+        this.builtInRuleCount = rules.size();
         if (customRules != null) {
             this.rules.addAll(customRules);
         }
     }
 
+    /**
+     * Masker of the Logback layouts and converters that were not given one: the instance set
+     * by {@link #setCurrent(DataMasker)}, with the configured custom rules, or one with the
+     * built-in rules only. Read on each use since Logback starts before the application.
+     */
+    public static DataMasker current() {
+        DataMasker masker = current;
+        return masker != null ? masker : Defaults.INSTANCE;
+    }
+
+    public static void setCurrent(DataMasker dataMasker) {
+        current = dataMasker;
+    }
+
     public String mask(String input) {
         if (input == null || input.isBlank()) {
             return input;
         }
+        LoggingMetrics metrics = LoggingMetrics.current();
+        if (metrics != null) {
+            return maskMeasured(input, metrics);
+        }
+        String result = input;
+        for (int i = firstRule(input); i < rules.size(); i++) {
+            result = rules.get(i).apply(result);
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #mask(String)}, adding the number of replacements made by each rule to
+     * {@code matchCounts}, indexed like {@link #ruleNames()}.
+     */
+    public String mask(String input, long[] matchCounts) {
+        if (input == null || input.isBlank()) {
+            return input;
+        }
+        String result = input;
+        StringBuilder out = new StringBuilder();
+        for (int i = firstRule(input); i < rules.size(); i++) {
+            out.setLength(0);
+            int matches = rules.get(i).apply(result, out);
+            if (matches > 0) {
+                matchCounts[i] += matches;
+                result = out.toString();
+            }
+        }
+        return result;
+    }
+
+    private String maskMeasured(String input, LoggingMetrics metrics) {
+        RuleStats stats = ruleStats;
+        if (stats == null || stats.metrics() != metrics) {
+            stats = new RuleStats(metrics, rules.stream()
+                .map(rule -> metrics.maskingRule(rule.name()))
+                .toArray(LatencyStats[]::new));
+            ruleStats = stats;
+        }
         String result = input;
-        for (MaskingRule rule : rules) {
-            result = rule.pattern().matcher(result).replaceAll(rule.replacement());
+        StringBuilder out = new StringBuilder();
+        for (int i = firstRule(input); i < rules.size(); i++) {
+            out.setLength(0);
+            long start = System.nanoTime();
+            int matches = rules.get(i).apply(result, out);
+            if (matches > 0) {
+                result = out.toString();
+            }
+            stats.perRule()[i].record(System.nanoTime() - start, matches);
         }
         return result;
     }
 
-    private List<MaskingRule> initializeDefaultRules() {
-        List<MaskingRule> rules = new ArrayList<>();
+    // Every built-in rule needs an ASCII digit, or '@' for emails: text without either skips them
+    private int firstRule(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '@') {
+                return 0;
+            }
+        }
+        return builtInRuleCount;
+    }
+
+    public List<String> ruleNames() {
+        return rules.stream().map(Rule::name).toList();
+    }
+
+    private List<Rule> initializeDefaultRules() {
+        List<Rule> rules = new ArrayList<>();
 
         // PAN - Card numbers (Visa, Mastercard, etc.)
         rules.add(new MaskingRule(
+            "pan",
             Pattern.compile("\\b([3-6]\\d{5})\\d{4,9}(\\d{4})\\b"),
             "$1******$2"
         ));
 
         // PAN with separators
         rules.add(new MaskingRule(
+            "pan-separated",
             Pattern.compile("\\b([3-6]\\d{3})[- ]?(\\d{4})[- ]?(\\d{4})[- ]?(\\d{4})\\b"),
             "$1-****-****-$4"
         ));
 
         // IBAN
         rules.add(new MaskingRule(
+            "iban",
             Pattern.compile("\\b([A-Z]{2}\\d{2})[A-Z0-9]{8,26}([A-Z0-9]{4})\\b"),
             "$1************$2"
         ));
 
         // Email
         rules.add(new MaskingRule(
+            "email",
             Pattern.compile("\\b([a-zA-Z0-9])[a-zA-Z0-9._%+-]*@([a-zA-Z0-9.-]+\\.[a-zA-Z]{2,})\\b"),
             "$1***@$2"
         ));
 
         // French phone
         rules.add(new MaskingRule(
+            "phone-fr",
             Pattern.compile("\\b(\\+?33|0)([1-9])(\\d{2})(\\d{2})(\\d{2})(\\d{2})\\b"),
             "$1$2******$6"
         ));
 
         // CVV in context
         rules.add(new MaskingRule(
-            Pattern.compile("(?i)(cvv|cvc|cvn)[\":\\s]*(\\d{3,4})"),
+            "cvv",
+            Pattern.compile("(?i)(cvv|cvc|cvn)[\":=\\s]*(\\d{3,4})"),
             "$1:***"
         ));
 
         return rules;
     }
 
-    public record MaskingRule(Pattern pattern, String replacement) {}
+    private static final class Defaults {
+
+        static final DataMasker INSTANCE = new DataMasker();
+    }
+
+    // Per-rule statistics resolved once for the active metrics instance
+    private record RuleStats(LoggingMetrics metrics, LatencyStats[] perRule) {
+    }
+
+    public interface Rule {
+
+        String name();
+
+        String apply(String input);
+
+        /**
+         * Returns the number of replacements made. When it is positive the masked input has
+         * been appended to {@code out}, otherwise {@code out} is left untouched.
+         */
+        int apply(String input, StringBuilder out);
+    }
+
+    public record MaskingRule(String name, Pattern pattern, String replacement) implements Rule {
+
+        public MaskingRule(Pattern pattern, String replacement) {
+            this(pattern.pattern(), pattern, replacement);
+        }
+
+        @Override
+        public String apply(String input) {
+            return pattern.matcher(input).replaceAll(replacement);
+        }
+
+        @Override
+        public int apply(String input, StringBuilder out) {
+            Matcher matcher = pattern.matcher(input);
+            if (!matcher.find()) {
+                return 0;
+            }
+            int matches = 0;
+            do {
+                matcher.appendReplacement(out, replacement);
+                matches++;
+            } while (matcher.find());
+            matcher.appendTail(out);
+            return matches;
+        }
+    }
 }
@@ -0,0 +1,30 @@
+package com.bank.logging.masking;
+
+import ch.qos.logback.classic.pattern.MDCConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * {@code %mX{key}} - MDC value with sensitive data masked. Same options as {@code %X}.
+ */
+public class MaskedMdcConverter extends MDCConverter implements MaskingConverter {
+
+    // null: DataMasker.current()
+    private DataMasker dataMasker;
+    private boolean maskingEnabled = true;
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        String value = super.convert(event);
+        return maskingEnabled ? masker().mask(value) : value;
+    }
+
+    private DataMasker masker() {
+        return dataMasker != null ? dataMasker : DataMasker.current();
+    }
+
+    @Override
+    public void setDataMasker(DataMasker dataMasker) { this.dataMasker = dataMasker; }
+
+    @Override
+    public void setMaskingEnabled(boolean maskingEnabled) { this.maskingEnabled = maskingEnabled; }
+}
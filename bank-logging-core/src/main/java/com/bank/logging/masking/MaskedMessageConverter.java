@@ -0,0 +1,30 @@
+package com.bank.logging.masking;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * {@code %mmsg} - formatted message with sensitive data masked.
+ */
+public class MaskedMessageConverter extends ClassicConverter implements MaskingConverter {
+
+    // null: DataMasker.current()
+    private DataMasker dataMasker;
+    private boolean maskingEnabled = true;
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        String message = event.getFormattedMessage();
+        return maskingEnabled ? masker().mask(message) : message;
+    }
+
+    private DataMasker masker() {
+        return dataMasker != null ? dataMasker : DataMasker.current();
+    }
+
+    @Override
+    public void setDataMasker(DataMasker dataMasker) { this.dataMasker = dataMasker; }
+
+    @Override
+    public void setMaskingEnabled(boolean maskingEnabled) { this.maskingEnabled = maskingEnabled; }
+}
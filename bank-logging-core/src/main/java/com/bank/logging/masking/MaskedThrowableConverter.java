@@ -0,0 +1,30 @@
+package com.bank.logging.masking;
+
+import ch.qos.logback.classic.pattern.ThrowableProxyConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * {@code %mEx} - stack trace with sensitive data masked. Same options as {@code %ex}.
+ */
+public class MaskedThrowableConverter extends ThrowableProxyConverter implements MaskingConverter {
+
+    // null: DataMasker.current()
+    private DataMasker dataMasker;
+    private boolean maskingEnabled = true;
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        String stackTrace = super.convert(event);
+        return maskingEnabled ? masker().mask(stackTrace) : stackTrace;
+    }
+
+    private DataMasker masker() {
+        return dataMasker != null ? dataMasker : DataMasker.current();
+    }
+
+    @Override
+    public void setDataMasker(DataMasker dataMasker) { this.dataMasker = dataMasker; }
+
+    @Override
+    public void setMaskingEnabled(boolean maskingEnabled) { this.maskingEnabled = maskingEnabled; }
+}
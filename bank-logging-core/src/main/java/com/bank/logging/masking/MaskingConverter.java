@@ -0,0 +1,12 @@
+package com.bank.logging.masking;
+
+/**
+ * Pattern converter that masks its own output, so that a layout only pays for masking on
+ * the segments that may carry personal data.
+ */
+public interface MaskingConverter {
+
+    void setDataMasker(DataMasker dataMasker);
+
+    void setMaskingEnabled(boolean maskingEnabled);
+}
@@ -4,6 +4,7 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.IThrowableProxy;
 import ch.qos.logback.classic.spi.StackTraceElementProxy;
 import ch.qos.logback.core.LayoutBase;
+import com.bank.logging.metrics.LoggingMetrics;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -16,11 +17,14 @@ import java.util.Map;
 
 public class MaskingJsonLayout extends LayoutBase<ILoggingEvent> {
 
+    public static final String METRICS_COMPONENT = "json-layout";
+
     private static final DateTimeFormatter ISO_FORMATTER = 
         DateTimeFormatter.ISO_OFFSET_DATE_TIME.withZone(ZoneId.systemDefault());
 
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final DataMasker dataMasker = new DataMasker();
+    // null: DataMasker.current(), the configured rules once the application has started
+    private DataMasker dataMasker;
 
     private String serviceName = "unknown-service";
     private String environment = "unknown";
@@ -32,6 +36,7 @@ public class MaskingJsonLayout extends LayoutBase<ILoggingEvent> {
     @Override
     public String doLayout(ILoggingEvent event) {
         ObjectNode root = objectMapper.createObjectNode();
+        DataMasker masker = dataMasker != null ? dataMasker : DataMasker.current();
 
         root.put("@timestamp", ISO_FORMATTER.format(Instant.ofEpochMilli(event.getTimeStamp())));
         root.put("level", event.getLevel().toString());
@@ -45,7 +50,7 @@ public class MaskingJsonLayout extends LayoutBase<ILoggingEvent> {
             if (mdc != null && !mdc.isEmpty()) {
                 ObjectNode contextNode = root.putObject("context");
                 mdc.forEach((key, value) -> {
-                    String maskedValue = maskingEnabled ? dataMasker.mask(value) : value;
+                    String maskedValue = maskingEnabled ? masker.mask(value) : value;
                     contextNode.put(key, maskedValue);
                 });
             }
@@ -53,7 +58,7 @@ public class MaskingJsonLayout extends LayoutBase<ILoggingEvent> {
 
         String message = event.getFormattedMessage();
         if (message != null) {
-            root.put("message", maskingEnabled ? dataMasker.mask(message) : message);
+            root.put("message", maskingEnabled ? masker.mask(message) : message);
         }
 
         IThrowableProxy throwable = event.getThrowableProxy();
@@ -61,7 +66,7 @@ public class MaskingJsonLayout extends LayoutBase<ILoggingEvent> {
             ObjectNode exNode = root.putObject("exception");
             exNode.put("class", throwable.getClassName());
             if (throwable.getMessage() != null) {
-                exNode.put("message", maskingEnabled ? dataMasker.mask(throwable.getMessage()) : throwable.getMessage());
+                exNode.put("message", maskingEnabled ? masker.mask(throwable.getMessage()) : throwable.getMessage());
             }
             ArrayNode stackTrace = exNode.putArray("stack_trace");
             StackTraceElementProxy[] frames = throwable.getStackTraceElementProxyArray();
@@ -72,7 +77,14 @@ public class MaskingJsonLayout extends LayoutBase<ILoggingEvent> {
         }
 
         try {
-            return objectMapper.writeValueAsString(root) + System.lineSeparator();
+            LoggingMetrics metrics = LoggingMetrics.current();
+            if (metrics == null) {
+                return objectMapper.writeValueAsString(root) + System.lineSeparator();
+            }
+            long start = System.nanoTime();
+            String json = objectMapper.writeValueAsString(root);
+            metrics.serialization(METRICS_COMPONENT).record(System.nanoTime() - start, json.length());
+            return json + System.lineSeparator();
         } catch (JsonProcessingException e) {
             return "{\"error\":\"JSON serialization failed\"}" + System.lineSeparator();
         }
@@ -85,4 +97,5 @@ public class MaskingJsonLayout extends LayoutBase<ILoggingEvent> {
     public void setIncludeMdc(boolean includeMdc) { this.includeMdc = includeMdc; }
     public void setMaskingEnabled(boolean maskingEnabled) { this.maskingEnabled = maskingEnabled; }
     public void setMaxStackTraceDepth(int maxStackTraceDepth) { this.maxStackTraceDepth = maxStackTraceDepth; }
+    public void setDataMasker(DataMasker dataMasker) { this.dataMasker = dataMasker; }
 }
@@ -1,23 +1,150 @@
 package com.bank.logging.masking;
 
 import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.pattern.EnsureExceptionHandling;
+import ch.qos.logback.classic.pattern.KeyValuePairConverter;
+import ch.qos.logback.classic.pattern.MDCConverter;
+import ch.qos.logback.classic.pattern.MessageConverter;
+import ch.qos.logback.classic.pattern.NopThrowableInformationConverter;
+import ch.qos.logback.classic.pattern.ThrowableHandlingConverter;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.pattern.CompositeConverter;
+import ch.qos.logback.core.pattern.Converter;
+import ch.qos.logback.core.pattern.ConverterUtil;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Pattern layout with masking of sensitive data.
+ * <p>
+ * When the pattern uses the masking converters ({@code %mmsg}, {@code %mX{key}},
+ * {@code %mEx}), only those segments are masked, plus the output of any plain message, MDC,
+ * key-value or throwable converter left in the same pattern ({@code %msg}, {@code %X},
+ * {@code %kvp}, {@code %ex}...). The rest of the line is written as is. Otherwise the whole
+ * rendered line is masked.
+ */
 public class MaskingPatternLayout extends PatternLayout {
 
-    private final DataMasker dataMasker = new DataMasker();
+    public static final String MASKED_MESSAGE_WORD = "mmsg";
+    public static final String MASKED_MDC_WORD = "mX";
+    public static final String MASKED_THROWABLE_WORD = "mEx";
+
+    // null: DataMasker.current(), the configured rules once the application has started
+    private DataMasker dataMasker;
     private boolean maskingEnabled = true;
+    private boolean converterMasking;
+    private Converter<ILoggingEvent> head;
+    // Top-level converters whose output is masked by the layout in converter mode
+    private final Set<Converter<ILoggingEvent>> maskedSegments = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public MaskingPatternLayout() {
+        getInstanceConverterMap().put(MASKED_MESSAGE_WORD, MaskedMessageConverter.class.getName());
+        getInstanceConverterMap().put(MASKED_MDC_WORD, MaskedMdcConverter.class.getName());
+        getInstanceConverterMap().put(MASKED_THROWABLE_WORD, MaskedThrowableConverter.class.getName());
+        setPostCompileProcessor(this::configureConverters);
+    }
 
     public void setMaskingEnabled(boolean enabled) {
         this.maskingEnabled = enabled;
     }
 
+    public void setDataMasker(DataMasker dataMasker) {
+        this.dataMasker = dataMasker;
+    }
+
     @Override
     public String doLayout(ILoggingEvent event) {
         String message = super.doLayout(event);
-        if (!maskingEnabled || message == null) {
+        if (!maskingEnabled || converterMasking || message == null) {
             return message;
         }
-        return dataMasker.mask(message);
+        return masker().mask(message);
+    }
+
+    @Override
+    protected String writeLoopOnConverters(ILoggingEvent event) {
+        if (!maskingEnabled || !converterMasking || maskedSegments.isEmpty()) {
+            return super.writeLoopOnConverters(event);
+        }
+        StringBuilder line = new StringBuilder(256);
+        for (Converter<ILoggingEvent> c = head; c != null; c = c.getNext()) {
+            int start = line.length();
+            c.write(line, event);
+            if (start < line.length() && maskedSegments.contains(c)) {
+                String segment = line.substring(start);
+                String masked = masker().mask(segment);
+                // DataMasker returns the same instance when no rule matched
+                if (masked != segment) {
+                    line.setLength(start);
+                    line.append(masked);
+                }
+            }
+        }
+        return line.toString();
+    }
+
+    private DataMasker masker() {
+        return dataMasker != null ? dataMasker : DataMasker.current();
+    }
+
+    private void configureConverters(Context context, Converter<ILoggingEvent> head) {
+        this.head = head;
+        converterMasking = configureMaskingConverters(head);
+        maskedSegments.clear();
+        if (converterMasking) {
+            for (Converter<ILoggingEvent> c = head; c != null; c = c.getNext()) {
+                if (hasUnmaskedData(c)) {
+                    maskedSegments.add(c);
+                }
+            }
+        }
+
+        EnsureExceptionHandling exceptionHandling = new EnsureExceptionHandling();
+        if (!converterMasking) {
+            exceptionHandling.process(context, head);
+        } else if (!exceptionHandling.chainHandlesThrowable(head)) {
+            // Stack traces appended by default must be masked as well
+            MaskedThrowableConverter throwableConverter = new MaskedThrowableConverter();
+            throwableConverter.setDataMasker(dataMasker);
+            throwableConverter.setMaskingEnabled(maskingEnabled);
+            ConverterUtil.findTail(head).setNext(throwableConverter);
+        }
+    }
+
+    // Converters that may write personal data without masking it themselves
+    private static boolean hasUnmaskedData(Converter<ILoggingEvent> converter) {
+        if (converter instanceof MaskingConverter || converter instanceof NopThrowableInformationConverter) {
+            return false;
+        }
+        if (converter instanceof MessageConverter || converter instanceof MDCConverter
+                || converter instanceof KeyValuePairConverter || converter instanceof ThrowableHandlingConverter) {
+            return true;
+        }
+        if (converter instanceof CompositeConverter<ILoggingEvent> composite) {
+            for (Converter<ILoggingEvent> c = composite.getChildConverter(); c != null; c = c.getNext()) {
+                if (hasUnmaskedData(c)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean configureMaskingConverters(Converter<ILoggingEvent> head) {
+        boolean found = false;
+        for (Converter<ILoggingEvent> c = head; c != null; c = c.getNext()) {
+            if (c instanceof MaskingConverter maskingConverter) {
+                maskingConverter.setDataMasker(dataMasker);
+                maskingConverter.setMaskingEnabled(maskingEnabled);
+                found = true;
+            }
+            if (c instanceof CompositeConverter<ILoggingEvent> composite) {
+                found |= configureMaskingConverters(composite.getChildConverter());
+            }
+        }
+        return found;
     }
 }
@@ -0,0 +1,43 @@
+package com.bank.logging.messaging;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import org.slf4j.MDC;
+import org.springframework.jms.core.MessagePostProcessor;
+
+/**
+ * Correlation propagation for JMS. Message property names must be Java identifiers, so the
+ * MDC key names are used instead of the HTTP header names.
+ * <pre>
+ * jmsTemplate.convertAndSend("settlements", payload, JmsCorrelation.postProcessor());
+ * ...
+ * try (MessagingContext.Scope ignored = JmsCorrelation.bind(message)) { ... }
+ * </pre>
+ */
+public final class JmsCorrelation {
+
+    private static final MessagePostProcessor POST_PROCESSOR = JmsCorrelation::addProperties;
+
+    private JmsCorrelation() {}
+
+    public static MessagePostProcessor postProcessor() {
+        return POST_PROCESSOR;
+    }
+
+    public static MessagingContext.Scope bind(Message message) throws JMSException {
+        return MessagingContext.bind(
+            message.getStringProperty(MessagingContext.KEYS[0]),
+            message.getStringProperty(MessagingContext.KEYS[1]),
+            message.getStringProperty(MessagingContext.KEYS[2]));
+    }
+
+    private static Message addProperties(Message message) throws JMSException {
+        for (String key : MessagingContext.KEYS) {
+            String value = MDC.get(key);
+            if (value != null && !value.isBlank() && !message.propertyExists(key)) {
+                message.setStringProperty(key, value);
+            }
+        }
+        return message;
+    }
+}
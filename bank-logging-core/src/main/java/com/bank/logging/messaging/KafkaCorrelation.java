@@ -0,0 +1,46 @@
+package com.bank.logging.messaging;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Per-record correlation binding for Kafka consumers, including batch listeners:
+ * <pre>
+ * &#64;KafkaListener(topics = "settlements", batch = "true")
+ * public void onBatch(List&lt;ConsumerRecord&lt;String, Settlement&gt;&gt; records) {
+ *     KafkaCorrelation.forEach(records, record -&gt; settle(record.value()));
+ * }
+ * </pre>
+ */
+public final class KafkaCorrelation {
+
+    private KafkaCorrelation() {}
+
+    public static MessagingContext.Scope bind(ConsumerRecord<?, ?> record) {
+        Headers headers = record.headers();
+        return MessagingContext.bind(
+            header(headers, MessagingContext.HEADERS[0]),
+            header(headers, MessagingContext.HEADERS[1]),
+            header(headers, MessagingContext.HEADERS[2]));
+    }
+
+    /**
+     * Runs {@code action} for each record with that record's context bound.
+     */
+    public static <R extends ConsumerRecord<?, ?>> void forEach(Iterable<R> records, Consumer<? super R> action) {
+        for (R record : records) {
+            try (MessagingContext.Scope ignored = bind(record)) {
+                action.accept(record);
+            }
+        }
+    }
+
+    static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.logging.messaging;
+
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Adds correlation, transaction and trace id headers to produced records. Registered through
+ * the producer {@code interceptor.classes} property; headers already set by the caller win.
+ */
+public class KafkaCorrelationProducerInterceptor implements ProducerInterceptor<Object, Object> {
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        Headers headers = record.headers();
+        for (int i = 0; i < MessagingContext.KEYS.length; i++) {
+            String value = MDC.get(MessagingContext.KEYS[i]);
+            if (value != null && !value.isBlank() && headers.lastHeader(MessagingContext.HEADERS[i]) == null) {
+                headers.add(MessagingContext.HEADERS[i], value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.bank.logging.messaging;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+/**
+ * Binds each record's context for record listeners of Spring Kafka containers. Batch
+ * listeners use {@link KafkaCorrelation#forEach} instead.
+ */
+public class KafkaCorrelationRecordInterceptor implements RecordInterceptor<Object, Object> {
+
+    // Listener containers process one record at a time per thread
+    private final ThreadLocal<MessagingContext.Scope> scope = new ThreadLocal<>();
+
+    @Override
+    public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record,
+                                                    Consumer<Object, Object> consumer) {
+        // A record that never reached afterRecord must not leak into the next one
+        close();
+        scope.set(KafkaCorrelation.bind(record));
+        return record;
+    }
+
+    @Override
+    public void afterRecord(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+        close();
+    }
+
+    private void close() {
+        MessagingContext.Scope current = scope.get();
+        if (current != null) {
+            scope.remove();
+            current.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.bank.logging.messaging;
+
+import com.bank.logging.mdc.MdcKeys;
+import org.slf4j.MDC;
+
+/**
+ * Binds the correlation context carried by a message to the MDC.
+ * <p>
+ * Only the propagated keys are touched: binding puts them directly into the MDC and the
+ * returned scope restores their previous values, so no context map is copied per message.
+ */
+public final class MessagingContext {
+
+    /** MDC keys propagated through message headers. */
+    static final String[] KEYS = {MdcKeys.CORRELATION_ID, MdcKeys.TRANSACTION_ID, MdcKeys.TRACE_ID};
+
+    /** Kafka header names, indexed like {@link #KEYS}. */
+    static final String[] HEADERS = {MdcKeys.HEADER_CORRELATION_ID, MdcKeys.HEADER_TRANSACTION_ID, MdcKeys.HEADER_TRACE_ID};
+
+    private MessagingContext() {}
+
+    /**
+     * Binds the given values; {@code null} or blank values leave the current MDC value in place.
+     */
+    static Scope bind(String correlationId, String transactionId, String traceId) {
+        Scope scope = new Scope(MDC.get(KEYS[0]), MDC.get(KEYS[1]), MDC.get(KEYS[2]));
+        put(KEYS[0], correlationId);
+        put(KEYS[1], transactionId);
+        put(KEYS[2], traceId);
+        return scope;
+    }
+
+    private static void put(String key, String value) {
+        if (value != null && !value.isBlank()) {
+            MDC.put(key, value);
+        }
+    }
+
+    private static void restore(String key, String previous) {
+        if (previous != null) {
+            MDC.put(key, previous);
+        } else {
+            MDC.remove(key);
+        }
+    }
+
+    /**
+     * Restores the MDC values that were present before binding.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final String correlationId;
+        private final String transactionId;
+        private final String traceId;
+
+        private Scope(String correlationId, String transactionId, String traceId) {
+            this.correlationId = correlationId;
+            this.transactionId = transactionId;
+            this.traceId = traceId;
+        }
+
+        @Override
+        public void close() {
+            restore(KEYS[0], correlationId);
+            restore(KEYS[1], transactionId);
+            restore(KEYS[2], traceId);
+        }
+    }
+}
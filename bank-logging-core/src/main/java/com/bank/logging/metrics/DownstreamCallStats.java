@@ -0,0 +1,115 @@
+package com.bank.logging.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram, status classes, errors and bytes for one downstream host and route.
+ * Recording only increments striped counters and never allocates.
+ */
+public final class DownstreamCallStats {
+
+    /**
+     * Status recorded for calls cancelled by the caller before a response arrived.
+     */
+    public static final int CANCELLED = -2;
+
+    /**
+     * Upper bounds of the latency buckets, in milliseconds. A last bucket holds slower calls.
+     */
+    public static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final long[] BUCKET_BOUNDS_NANOS = new long[BUCKET_BOUNDS_MS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            BUCKET_BOUNDS_NANOS[i] = BUCKET_BOUNDS_MS[i] * 1_000_000L;
+        }
+    }
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder[] buckets = newAdders(BUCKET_BOUNDS_MS.length + 1);
+    // 1xx to 5xx
+    private final LongAdder[] statusClasses = newAdders(5);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    /**
+     * Records a call; {@code status} is the HTTP status, {@link #CANCELLED}, or another negative
+     * value when the call failed without a response.
+     */
+    public void record(int status, long nanos, long sent, long received) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets[bucketIndex(nanos)].increment();
+        if (status >= 100 && status < 600) {
+            statusClasses[status / 100 - 1].increment();
+        } else if (status == CANCELLED) {
+            cancelled.increment();
+        } else {
+            errors.increment();
+        }
+        if (sent > 0) {
+            bytesSent.add(sent);
+        }
+        if (received > 0) {
+            bytesReceived.add(received);
+        }
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket containing it.
+     */
+    public double percentileMs(double percentile) {
+        long total = 0;
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return BUCKET_BOUNDS_MS[i];
+            }
+        }
+        return maxNanos.get() / 1e6;
+    }
+
+    public long count() { return count.sum(); }
+    public double totalNanos() { return totalNanos.sum(); }
+    public double maxNanos() { return maxNanos.get(); }
+    public long bucketCount(int index) { return buckets[index].sum(); }
+    public long statusClassCount(int statusClass) { return statusClasses[statusClass - 1].sum(); }
+    public long errors() { return errors.sum(); }
+    public long cancelled() { return cancelled.sum(); }
+    public long bytesSent() { return bytesSent.sum(); }
+    public long bytesReceived() { return bytesReceived.sum(); }
+
+    private static int bucketIndex(long nanos) {
+        for (int i = 0; i < BUCKET_BOUNDS_NANOS.length; i++) {
+            if (nanos <= BUCKET_BOUNDS_NANOS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_NANOS.length;
+    }
+
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,190 @@
+package com.bank.logging.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency of calls to downstream systems, shared by the outbound propagation interceptors.
+ * <p>
+ * Statistics are kept per host and route. Routes are URI templates when the client exposes
+ * them, otherwise request paths with identifier-like segments replaced by {@code {id}}.
+ * Hosts and routes beyond their limits are grouped under {@code OTHER}.
+ * Calls slower than the threshold are logged with their correlation id and kept in a small
+ * ring for the endpoint.
+ */
+public class DownstreamMetrics {
+
+    public static final String OTHER_ROUTE = "OTHER";
+    public static final String OTHER_HOST = "OTHER";
+    public static final int DEFAULT_MAX_ROUTES = 500;
+    public static final int DEFAULT_MAX_HOSTS = 100;
+    public static final int SLOW_CALL_HISTORY = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(DownstreamMetrics.class);
+
+    private final Map<String, Map<String, DownstreamCallStats>> hosts = new ConcurrentHashMap<>();
+    private final AtomicInteger routeCount = new AtomicInteger();
+    private final AtomicReferenceArray<SlowCall> slowCalls = new AtomicReferenceArray<>(SLOW_CALL_HISTORY);
+    private final AtomicLong slowCallSequence = new AtomicLong();
+    private volatile Listener listener;
+    private long slowCallThresholdNanos = 1_000_000_000L;
+    private int maxRoutes = DEFAULT_MAX_ROUTES;
+    private int maxHosts = DEFAULT_MAX_HOSTS;
+
+    public interface Listener {
+
+        void onRoute(String host, String route, DownstreamCallStats stats);
+    }
+
+    public record SlowCall(Instant timestamp, String host, String route, String method, int status,
+                           long durationMs, String correlationId) {
+    }
+
+    public record RouteSnapshot(String host, String route, long count, long errors, long cancelled,
+                                Map<String, Long> responses,
+                                double meanMs, double maxMs, double p50Ms, double p99Ms, double p999Ms,
+                                long bytesSent, long bytesReceived) {
+    }
+
+    public void record(String host, String route, String method, int status, long nanos,
+                       long bytesSent, long bytesReceived, String correlationId) {
+        stats(host, route).record(status, nanos, bytesSent, bytesReceived);
+        if (slowCallThresholdNanos > 0 && nanos > slowCallThresholdNanos) {
+            long durationMs = nanos / 1_000_000;
+            log.warn("Slow downstream call {} {} {}: {}ms (status={}, correlation_id={})",
+                method, host, route, durationMs, status, correlationId);
+            int slot = (int) (slowCallSequence.getAndIncrement() % SLOW_CALL_HISTORY);
+            slowCalls.set(slot, new SlowCall(Instant.now(), host, route, method, status, durationMs, correlationId));
+        }
+    }
+
+    public DownstreamCallStats stats(String host, String route) {
+        String hostKey = host != null ? host : "unknown";
+        Map<String, DownstreamCallStats> routes = hosts.get(hostKey);
+        if (routes == null) {
+            // Hosts taken from user input or service discovery would otherwise grow without bound
+            if (hosts.size() >= maxHosts) {
+                hostKey = OTHER_HOST;
+            }
+            routes = hosts.computeIfAbsent(hostKey, h -> new ConcurrentHashMap<>());
+        }
+        DownstreamCallStats stats = routes.get(route);
+        if (stats != null) {
+            return stats;
+        }
+        // Bounds cardinality when routes cannot be templated
+        String routeKey = routeCount.get() < maxRoutes ? route : OTHER_ROUTE;
+        String statsHost = hostKey;
+        return routes.computeIfAbsent(routeKey, r -> newStats(statsHost, r));
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener != null) {
+            hosts.forEach((host, routes) -> routes.forEach((route, stats) -> listener.onRoute(host, route, stats)));
+        }
+    }
+
+    public List<RouteSnapshot> snapshot() {
+        List<RouteSnapshot> snapshot = new ArrayList<>();
+        hosts.forEach((host, routes) -> routes.forEach((route, stats) -> {
+            long count = stats.count();
+            Map<String, Long> responses = new LinkedHashMap<>();
+            for (int statusClass = 1; statusClass <= 5; statusClass++) {
+                long responseCount = stats.statusClassCount(statusClass);
+                if (responseCount > 0) {
+                    responses.put(statusClass + "xx", responseCount);
+                }
+            }
+            snapshot.add(new RouteSnapshot(host, route, count, stats.errors(), stats.cancelled(), responses,
+                count > 0 ? stats.totalNanos() / count / 1e6 : 0, stats.maxNanos() / 1e6,
+                stats.percentileMs(0.5), stats.percentileMs(0.99), stats.percentileMs(0.999),
+                stats.bytesSent(), stats.bytesReceived()));
+        }));
+        snapshot.sort(Comparator.comparing(RouteSnapshot::host).thenComparing(RouteSnapshot::route));
+        return snapshot;
+    }
+
+    /**
+     * Returns the most recent slow calls, newest first.
+     */
+    public List<SlowCall> slowCalls() {
+        List<SlowCall> calls = new ArrayList<>(SLOW_CALL_HISTORY);
+        for (int i = 0; i < SLOW_CALL_HISTORY; i++) {
+            SlowCall call = slowCalls.get(i);
+            if (call != null) {
+                calls.add(call);
+            }
+        }
+        calls.sort(Comparator.comparing(SlowCall::timestamp).reversed());
+        return calls;
+    }
+
+    /**
+     * Replaces identifier-like path segments (numbers, UUIDs, long hex strings) by {@code {id}}.
+     */
+    public static String normalizePath(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder route = null;
+        int segmentStart = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i < path.length() && path.charAt(i) != '/') {
+                continue;
+            }
+            if (isIdentifier(path, segmentStart, i)) {
+                if (route == null) {
+                    route = new StringBuilder(path.length()).append(path, 0, segmentStart);
+                }
+                route.append("{id}");
+            } else if (route != null) {
+                route.append(path, segmentStart, i);
+            }
+            if (route != null && i < path.length()) {
+                route.append('/');
+            }
+            segmentStart = i + 1;
+        }
+        return route != null ? route.toString() : path;
+    }
+
+    private static boolean isIdentifier(String path, int start, int end) {
+        if (end <= start) {
+            return false;
+        }
+        boolean allDigits = true;
+        boolean hexOrDash = true;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            allDigits &= c >= '0' && c <= '9';
+            hexOrDash &= (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == '-';
+        }
+        return allDigits || (hexOrDash && end - start >= 16);
+    }
+
+    private DownstreamCallStats newStats(String host, String route) {
+        routeCount.incrementAndGet();
+        DownstreamCallStats stats = new DownstreamCallStats();
+        Listener l = listener;
+        if (l != null) {
+            l.onRoute(host, route, stats);
+        }
+        return stats;
+    }
+
+    public void setSlowCallThresholdMs(long slowCallThresholdMs) { this.slowCallThresholdNanos = slowCallThresholdMs * 1_000_000L; }
+    public void setMaxRoutes(int maxRoutes) { this.maxRoutes = maxRoutes; }
+    public void setMaxHosts(int maxHosts) { this.maxHosts = maxHosts; }
+}
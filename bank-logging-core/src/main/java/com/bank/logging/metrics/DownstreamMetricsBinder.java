@@ -0,0 +1,80 @@
+package com.bank.logging.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes {@link DownstreamMetrics} to Micrometer as function meters read on scrape.
+ */
+public class DownstreamMetricsBinder implements MeterBinder, DownstreamMetrics.Listener {
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final DownstreamMetrics downstreamMetrics;
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+    public DownstreamMetricsBinder(DownstreamMetrics downstreamMetrics) {
+        this.downstreamMetrics = downstreamMetrics;
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        registries.add(registry);
+        downstreamMetrics.setListener(this);
+    }
+
+    @Override
+    public void onRoute(String host, String route, DownstreamCallStats stats) {
+        Tags tags = Tags.of("host", host, "route", route);
+        for (MeterRegistry registry : registries) {
+            FunctionTimer.builder("bank.logging.downstream", stats, DownstreamCallStats::count,
+                    DownstreamCallStats::totalNanos, TimeUnit.NANOSECONDS)
+                .description("Calls to downstream systems")
+                .tags(tags)
+                .register(registry);
+            Gauge.builder("bank.logging.downstream.max", stats, s -> s.maxNanos() / 1e6)
+                .description("Slowest downstream call")
+                .baseUnit("milliseconds")
+                .tags(tags)
+                .register(registry);
+            for (double percentile : PERCENTILES) {
+                Gauge.builder("bank.logging.downstream.percentile", stats, s -> s.percentileMs(percentile))
+                    .description("Estimated latency percentile since startup")
+                    .baseUnit("milliseconds")
+                    .tags(tags.and("percentile", Double.toString(percentile)))
+                    .register(registry);
+            }
+            for (int statusClass = 1; statusClass <= 5; statusClass++) {
+                int index = statusClass;
+                FunctionCounter.builder("bank.logging.downstream.responses", stats, s -> s.statusClassCount(index))
+                    .description("Responses per status class")
+                    .tags(tags.and("status", statusClass + "xx"))
+                    .register(registry);
+            }
+            FunctionCounter.builder("bank.logging.downstream.errors", stats, DownstreamCallStats::errors)
+                .description("Calls that failed without a response")
+                .tags(tags)
+                .register(registry);
+            FunctionCounter.builder("bank.logging.downstream.cancelled", stats, DownstreamCallStats::cancelled)
+                .description("Calls cancelled by the caller before a response")
+                .tags(tags)
+                .register(registry);
+            FunctionCounter.builder("bank.logging.downstream.bytes.sent", stats, DownstreamCallStats::bytesSent)
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+            FunctionCounter.builder("bank.logging.downstream.bytes.received", stats, DownstreamCallStats::bytesReceived)
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.bank.logging.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, total and max of a timed operation, plus an associated amount (bytes, matches).
+ * Backed by striped adders so concurrent recording does not contend on a single counter.
+ */
+public final class LatencyStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder totalAmount = new LongAdder();
+    private final LongAccumulator maxAmount = new LongAccumulator(Math::max, 0L);
+
+    public void record(long nanos, long amount) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        if (amount != 0) {
+            totalAmount.add(amount);
+            maxAmount.accumulate(amount);
+        }
+    }
+
+    public long count() { return count.sum(); }
+    public double totalNanos() { return totalNanos.sum(); }
+    public double maxNanos() { return maxNanos.get(); }
+    public double totalAmount() { return totalAmount.sum(); }
+    public double maxAmount() { return maxAmount.get(); }
+}
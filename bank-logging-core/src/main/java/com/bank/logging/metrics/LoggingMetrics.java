@@ -0,0 +1,133 @@
+package com.bank.logging.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Self-observability of the logging pipeline.
+ * <p>
+ * Instrumented components call {@link #current()} and skip all measurement when it returns
+ * {@code null}, so metrics cost one field read when disabled. Statistics are plain striped
+ * counters; exporting them (e.g. to Micrometer) is done by reading them, never on the hot path.
+ */
+public final class LoggingMetrics {
+
+    public static final String LEVEL_TRACE = "trace";
+    public static final String LEVEL_DEBUG = "debug";
+    public static final String LEVEL_INFO = "info";
+    public static final String LEVEL_WARN = "warn";
+    public static final String LEVEL_ERROR = "error";
+    public static final String OTHER_LOGGER = "OTHER";
+    public static final int DEFAULT_MAX_LOGGERS = 100;
+
+    static final String[] LEVELS = {LEVEL_TRACE, LEVEL_DEBUG, LEVEL_INFO, LEVEL_WARN, LEVEL_ERROR};
+
+    private static volatile LoggingMetrics current;
+
+    private final Map<String, LongAdder[]> events = new ConcurrentHashMap<>();
+    private final Map<String, LatencyStats> maskingRules = new ConcurrentHashMap<>();
+    private final Map<String, LatencyStats> serialization = new ConcurrentHashMap<>();
+    private final LatencyStats mdcSetup = new LatencyStats();
+    private volatile Listener listener;
+    private volatile int maxLoggers = DEFAULT_MAX_LOGGERS;
+
+    public interface Listener {
+
+        void onLogger(String logger, LongAdder[] countsPerLevel);
+
+        void onMaskingRule(String rule, LatencyStats stats);
+
+        void onSerialization(String component, LatencyStats stats);
+    }
+
+    public static LoggingMetrics current() {
+        return current;
+    }
+
+    /**
+     * Enables metrics globally and returns the active instance.
+     */
+    public static synchronized LoggingMetrics enable() {
+        if (current == null) {
+            current = new LoggingMetrics();
+        }
+        return current;
+    }
+
+    public static synchronized void disable() {
+        current = null;
+    }
+
+    /**
+     * Sets the listener notified of new statistics, after replaying the existing ones.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener != null) {
+            events.forEach(listener::onLogger);
+            maskingRules.forEach(listener::onMaskingRule);
+            serialization.forEach(listener::onSerialization);
+        }
+    }
+
+    /**
+     * Counts an event; {@code levelIndex} is 0 (trace) to 4 (error). Loggers beyond
+     * {@link #setMaxLoggers(int) maxLoggers} are counted under {@link #OTHER_LOGGER}.
+     */
+    public void event(String logger, int levelIndex) {
+        LongAdder[] counts = events.get(logger);
+        if (counts == null) {
+            // One meter per logger and level would otherwise grow with every class that logs
+            String key = events.size() < maxLoggers ? logger : OTHER_LOGGER;
+            counts = events.computeIfAbsent(key, this::newLevelCounters);
+        }
+        counts[levelIndex].increment();
+    }
+
+    public LatencyStats maskingRule(String rule) {
+        LatencyStats stats = maskingRules.get(rule);
+        return stats != null ? stats : maskingRules.computeIfAbsent(rule, this::newMaskingRule);
+    }
+
+    public LatencyStats serialization(String component) {
+        LatencyStats stats = serialization.get(component);
+        return stats != null ? stats : serialization.computeIfAbsent(component, this::newSerialization);
+    }
+
+    public LatencyStats mdcSetup() {
+        return mdcSetup;
+    }
+
+    private LongAdder[] newLevelCounters(String logger) {
+        LongAdder[] counts = new LongAdder[LEVELS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        Listener l = listener;
+        if (l != null) {
+            l.onLogger(logger, counts);
+        }
+        return counts;
+    }
+
+    private LatencyStats newMaskingRule(String rule) {
+        LatencyStats stats = new LatencyStats();
+        Listener l = listener;
+        if (l != null) {
+            l.onMaskingRule(rule, stats);
+        }
+        return stats;
+    }
+
+    private LatencyStats newSerialization(String component) {
+        LatencyStats stats = new LatencyStats();
+        Listener l = listener;
+        if (l != null) {
+            l.onSerialization(component, stats);
+        }
+        return stats;
+    }
+
+    public void setMaxLoggers(int maxLoggers) { this.maxLoggers = maxLoggers; }
+}
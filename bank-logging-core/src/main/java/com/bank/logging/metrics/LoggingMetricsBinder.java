@@ -0,0 +1,120 @@
+package com.bank.logging.metrics;
+
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exposes {@link LoggingMetrics} to Micrometer.
+ * <p>
+ * Meters are function-based and read the striped counters on scrape, so the logging hot path
+ * never touches the registry. Closing the binder disables metrics again.
+ */
+public class LoggingMetricsBinder implements MeterBinder, AutoCloseable, LoggingMetrics.Listener {
+
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+    private MetricsTurboFilter turboFilter;
+    private LoggingMetrics metrics;
+    private int maxLoggers = LoggingMetrics.DEFAULT_MAX_LOGGERS;
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        registries.add(registry);
+        if (metrics == null) {
+            metrics = LoggingMetrics.enable();
+            metrics.setMaxLoggers(maxLoggers);
+            installTurboFilter();
+        }
+        // Replays existing statistics to all registries, including the new one
+        metrics.setListener(this);
+        timer(registry, "bank.logging.mdc.setup", "Time spent populating the MDC per request",
+            metrics.mdcSetup(), Tags.empty());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (turboFilter != null && LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            context.getTurboFilterList().remove(turboFilter);
+            turboFilter.stop();
+        }
+        LoggingMetrics.disable();
+        metrics = null;
+        registries.clear();
+    }
+
+    @Override
+    public void onLogger(String logger, LongAdder[] countsPerLevel) {
+        for (MeterRegistry registry : registries) {
+            for (int i = 0; i < countsPerLevel.length; i++) {
+                FunctionCounter.builder("bank.logging.events", countsPerLevel[i], LongAdder::sum)
+                    .description("Number of log events")
+                    .tag("level", LoggingMetrics.LEVELS[i])
+                    .tag("logger", logger)
+                    .register(registry);
+            }
+        }
+    }
+
+    @Override
+    public void onMaskingRule(String rule, LatencyStats stats) {
+        for (MeterRegistry registry : registries) {
+            FunctionTimer.builder("bank.logging.masking", stats, LatencyStats::count,
+                    LatencyStats::totalNanos, TimeUnit.NANOSECONDS)
+                .description("Time spent applying a masking rule")
+                .tag("rule", rule)
+                .register(registry);
+            FunctionCounter.builder("bank.logging.masking.matches", stats, LatencyStats::totalAmount)
+                .description("Number of values masked by a rule")
+                .tag("rule", rule)
+                .register(registry);
+        }
+    }
+
+    @Override
+    public void onSerialization(String component, LatencyStats stats) {
+        for (MeterRegistry registry : registries) {
+            timer(registry, "bank.logging.serialization", "Time spent serializing to JSON", stats,
+                Tags.of("component", component));
+            FunctionCounter.builder("bank.logging.serialization.bytes", stats, LatencyStats::totalAmount)
+                .description("Size of the JSON produced")
+                .baseUnit("bytes")
+                .tag("component", component)
+                .register(registry);
+            Gauge.builder("bank.logging.serialization.bytes.max", stats, LatencyStats::maxAmount)
+                .description("Largest JSON document produced")
+                .baseUnit("bytes")
+                .tag("component", component)
+                .register(registry);
+        }
+    }
+
+    private static void timer(MeterRegistry registry, String name, String description, LatencyStats stats,
+                              Tags tags) {
+        FunctionTimer.builder(name, stats, LatencyStats::count, LatencyStats::totalNanos, TimeUnit.NANOSECONDS)
+            .description(description)
+            .tags(tags)
+            .register(registry);
+    }
+
+    private void installTurboFilter() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            turboFilter = new MetricsTurboFilter();
+            turboFilter.setName("bank-logging-metrics");
+            turboFilter.setContext(context);
+            turboFilter.start();
+            context.addTurboFilter(turboFilter);
+        }
+    }
+
+    public void setMaxLoggers(int maxLoggers) { this.maxLoggers = maxLoggers; }
+}
@@ -0,0 +1,174 @@
+package com.bank.logging.propagation;
+
+import com.bank.logging.mdc.MdcKeys;
+import com.bank.logging.metrics.DownstreamMetrics;
+import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Times outbound calls made through {@code ClientHttpRequestInterceptor}s.
+ * <p>
+ * A call is recorded when its response is closed, which RestTemplate and RestClient do once the
+ * body has been extracted: the duration covers the body transfer, and the received bytes are
+ * those actually read, so chunked responses are counted too.
+ */
+final class DownstreamCallRecorder {
+
+    // Set by RestClient (Spring Framework 6.1+) on requests built from a URI template
+    static final String REST_CLIENT_URI_TEMPLATE = "org.springframework.web.client.RestClient.uriTemplate";
+
+    private DownstreamCallRecorder() {
+    }
+
+    static ClientHttpResponse execute(DownstreamMetrics metrics, HttpRequest request, byte[] body,
+                                      ClientHttpRequestExecution execution) throws IOException {
+        if (metrics == null) {
+            return execution.execute(request, body);
+        }
+        String correlationId = MDC.get(MdcKeys.CORRELATION_ID);
+        long start = System.nanoTime();
+        ClientHttpResponse response;
+        int status;
+        try {
+            response = execution.execute(request, body);
+            status = response.getStatusCode().value();
+        } catch (IOException | RuntimeException e) {
+            record(metrics, request, -1, start, body.length, 0, correlationId);
+            throw e;
+        }
+        return new RecordingResponse(response, metrics, request, status, start, body.length, correlationId);
+    }
+
+    private static void record(DownstreamMetrics metrics, HttpRequest request, int status, long start,
+                               long sent, long received, String correlationId) {
+        URI uri = request.getURI();
+        Object template = request.getAttributes().get(REST_CLIENT_URI_TEMPLATE);
+        metrics.record(uri.getHost(), route(template instanceof String s ? s : null, uri.getRawPath()),
+            request.getMethod().name(), status, System.nanoTime() - start, sent, received, correlationId);
+    }
+
+    /**
+     * Path part of the URI template when known, otherwise the normalized request path.
+     */
+    static String route(String uriTemplate, String path) {
+        if (uriTemplate == null) {
+            return DownstreamMetrics.normalizePath(path);
+        }
+        int start = 0;
+        int scheme = uriTemplate.indexOf("://");
+        if (scheme >= 0) {
+            int slash = uriTemplate.indexOf('/', scheme + 3);
+            if (slash < 0) {
+                return "/";
+            }
+            start = slash;
+        }
+        int query = uriTemplate.indexOf('?', start);
+        return uriTemplate.substring(start, query >= 0 ? query : uriTemplate.length());
+    }
+
+    /**
+     * Counts the body bytes read and records the call on the first {@link #close()}.
+     */
+    private static final class RecordingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final DownstreamMetrics metrics;
+        private final HttpRequest request;
+        private final int status;
+        private final long start;
+        private final long sent;
+        private final String correlationId;
+        private CountingInputStream body;
+        private boolean closed;
+
+        RecordingResponse(ClientHttpResponse delegate, DownstreamMetrics metrics, HttpRequest request, int status,
+                          long start, long sent, String correlationId) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+            this.request = request;
+            this.status = status;
+            this.start = start;
+            this.sent = sent;
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new CountingInputStream(delegate.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (!closed) {
+                    closed = true;
+                    record(metrics, request, status, start, sent, body != null ? body.count : 0, correlationId);
+                }
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -1,11 +1,34 @@
 package com.bank.logging.propagation;
 
 import com.bank.logging.mdc.MdcKeys;
+import com.bank.logging.metrics.DownstreamMetrics;
+import feign.Capability;
+import feign.Client;
+import feign.Request;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import feign.Response;
 import org.slf4j.MDC;
 
-public class FeignCorrelationInterceptor implements RequestInterceptor {
+import java.net.URI;
+
+/**
+ * Propagates correlation headers and, as a {@link Capability}, times calls made by the client.
+ */
+public class FeignCorrelationInterceptor implements RequestInterceptor, Capability {
+
+    private final DownstreamMetrics downstreamMetrics;
+
+    public FeignCorrelationInterceptor() {
+        this(null);
+    }
+
+    /**
+     * @param downstreamMetrics records call latency, or {@code null} to only propagate headers
+     */
+    public FeignCorrelationInterceptor(DownstreamMetrics downstreamMetrics) {
+        this.downstreamMetrics = downstreamMetrics;
+    }
 
     @Override
     public void apply(RequestTemplate template) {
@@ -19,4 +42,48 @@ public class FeignCorrelationInterceptor implements RequestInterceptor {
             template.header(MdcKeys.HEADER_TRANSACTION_ID, transactionId);
         }
     }
+
+    @Override
+    public Client enrich(Client client) {
+        if (downstreamMetrics == null) {
+            return client;
+        }
+        return (request, options) -> {
+            // Resolved up front: a failure here must not replace the outcome of the call
+            URI uri = parse(request.url());
+            String host = uri != null ? uri.getHost() : null;
+            String route = route(request, uri);
+            long start = System.nanoTime();
+            int status = -1;
+            long received = 0;
+            try {
+                Response response = client.execute(request, options);
+                status = response.status();
+                if (response.body() != null && response.body().length() != null) {
+                    received = response.body().length();
+                }
+                return response;
+            } finally {
+                downstreamMetrics.record(host, route, request.httpMethod().name(), status,
+                    System.nanoTime() - start, request.length(), received, MDC.get(MdcKeys.CORRELATION_ID));
+            }
+        };
+    }
+
+    // Feign method key (e.g. "PaymentClient#pay(Order)") identifies the route without parsing
+    private static String route(Request request, URI uri) {
+        RequestTemplate template = request.requestTemplate();
+        if (template != null && template.methodMetadata() != null) {
+            return template.methodMetadata().configKey();
+        }
+        return DownstreamMetrics.normalizePath(uri != null ? uri.getRawPath() : null);
+    }
+
+    private static URI parse(String url) {
+        try {
+            return URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.bank.logging.propagation;
 
 import com.bank.logging.mdc.MdcKeys;
+import com.bank.logging.metrics.DownstreamMetrics;
 import org.slf4j.MDC;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
@@ -15,6 +16,19 @@ import java.io.IOException;
  */
 public class RestClientCorrelationInterceptor implements ClientHttpRequestInterceptor {
 
+    private final DownstreamMetrics downstreamMetrics;
+
+    public RestClientCorrelationInterceptor() {
+        this(null);
+    }
+
+    /**
+     * @param downstreamMetrics records call latency, or {@code null} to only propagate headers
+     */
+    public RestClientCorrelationInterceptor(DownstreamMetrics downstreamMetrics) {
+        this.downstreamMetrics = downstreamMetrics;
+    }
+
     @Override
     public ClientHttpResponse intercept(HttpRequest request, byte[] body,
                                         ClientHttpRequestExecution execution) throws IOException {
@@ -33,6 +47,6 @@ public class RestClientCorrelationInterceptor implements ClientHttpRequestInterc
             request.getHeaders().set("X-User-ID", userId);
         }
 
-        return execution.execute(request, body);
+        return DownstreamCallRecorder.execute(downstreamMetrics, request, body, execution);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.bank.logging.propagation;
 
 import com.bank.logging.mdc.MdcKeys;
+import com.bank.logging.metrics.DownstreamMetrics;
 import org.slf4j.MDC;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
@@ -11,6 +12,19 @@ import java.io.IOException;
 
 public class RestTemplateCorrelationInterceptor implements ClientHttpRequestInterceptor {
 
+    private final DownstreamMetrics downstreamMetrics;
+
+    public RestTemplateCorrelationInterceptor() {
+        this(null);
+    }
+
+    /**
+     * @param downstreamMetrics records call latency, or {@code null} to only propagate headers
+     */
+    public RestTemplateCorrelationInterceptor(DownstreamMetrics downstreamMetrics) {
+        this.downstreamMetrics = downstreamMetrics;
+    }
+
     @Override
     public ClientHttpResponse intercept(HttpRequest request, byte[] body,
                                          ClientHttpRequestExecution execution) throws IOException {
@@ -25,6 +39,6 @@ public class RestTemplateCorrelationInterceptor implements ClientHttpRequestInte
             request.getHeaders().set(MdcKeys.HEADER_TRANSACTION_ID, transactionId);
         }
 
-        return execution.execute(request, body);
+        return DownstreamCallRecorder.execute(downstreamMetrics, request, body, execution);
     }
 }
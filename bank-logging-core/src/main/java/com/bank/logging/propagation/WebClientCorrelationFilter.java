@@ -1,6 +1,8 @@
 package com.bank.logging.propagation;
 
 import com.bank.logging.mdc.MdcKeys;
+import com.bank.logging.metrics.DownstreamCallStats;
+import com.bank.logging.metrics.DownstreamMetrics;
 import org.slf4j.MDC;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
@@ -8,22 +10,44 @@ import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
 import java.util.Map;
 
 public class WebClientCorrelationFilter implements ExchangeFilterFunction {
 
+    // Set by WebClient on requests built from a URI template
+    static final String URI_TEMPLATE_ATTRIBUTE = "org.springframework.web.reactive.function.client.WebClient.uriTemplate";
+
+    private final DownstreamMetrics downstreamMetrics;
+
+    public WebClientCorrelationFilter() {
+        this(null);
+    }
+
+    /**
+     * @param downstreamMetrics records call latency, or {@code null} to only propagate headers
+     */
+    public WebClientCorrelationFilter(DownstreamMetrics downstreamMetrics) {
+        this.downstreamMetrics = downstreamMetrics;
+    }
+
     public static WebClientCorrelationFilter create() {
         return new WebClientCorrelationFilter();
     }
 
+    public static WebClientCorrelationFilter create(DownstreamMetrics downstreamMetrics) {
+        return new WebClientCorrelationFilter(downstreamMetrics);
+    }
+
     @Override
     public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
         Map<String, String> mdcContext = MDC.getCopyOfContextMap();
         
         ClientRequest.Builder requestBuilder = ClientRequest.from(request);
+        String correlationId = null;
         
         if (mdcContext != null) {
-            String correlationId = mdcContext.get(MdcKeys.CORRELATION_ID);
+            correlationId = mdcContext.get(MdcKeys.CORRELATION_ID);
             if (correlationId != null && !correlationId.isBlank()) {
                 requestBuilder.header(MdcKeys.HEADER_CORRELATION_ID, correlationId);
             }
@@ -34,6 +58,30 @@ public class WebClientCorrelationFilter implements ExchangeFilterFunction {
             }
         }
 
-        return next.exchange(requestBuilder.build());
+        if (downstreamMetrics == null) {
+            return next.exchange(requestBuilder.build());
+        }
+        return timed(requestBuilder.build(), next, correlationId);
+    }
+
+    private Mono<ClientResponse> timed(ClientRequest request, ExchangeFunction next, String correlationId) {
+        URI uri = request.url();
+        String route = DownstreamCallRecorder.route(
+            (String) request.attribute(URI_TEMPLATE_ATTRIBUTE).orElse(null), uri.getRawPath());
+        String method = request.method().name();
+        long sent = Math.max(0, request.headers().getContentLength());
+        // The call starts on subscription, not when the filter is applied
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                .doOnSuccess(response -> downstreamMetrics.record(uri.getHost(), route, method,
+                    response != null ? response.statusCode().value() : -1, System.nanoTime() - start, sent,
+                    response != null ? response.headers().contentLength().orElse(0) : 0, correlationId))
+                .doOnError(e -> downstreamMetrics.record(uri.getHost(), route, method, -1,
+                    System.nanoTime() - start, sent, 0, correlationId))
+                // Timeouts, zip/firstWithValue losers and disposed subscribers
+                .doOnCancel(() -> downstreamMetrics.record(uri.getHost(), route, method,
+                    DownstreamCallStats.CANCELLED, System.nanoTime() - start, sent, 0, correlationId));
+        });
     }
 }
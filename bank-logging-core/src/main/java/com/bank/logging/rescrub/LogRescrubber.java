@@ -0,0 +1,408 @@
+package com.bank.logging.rescrub;
+
+import com.bank.logging.masking.DataMasker;
+import com.bank.logging.masking.LinearMaskingRule;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Re-applies masking rules to log files written before those rules existed.
+ * <p>
+ * Input files are memory-mapped and split into chunks at line boundaries. Chunks are masked
+ * in parallel on an executor and written back in order; regions without any match are
+ * copied with {@link FileChannel#transferTo} so they never go through the heap. Lines that are
+ * not valid UTF-8 are copied unchanged and counted in the report, since decoding them with
+ * replacement characters would corrupt them.
+ * <p>
+ * Command line usage:
+ * <pre>
+ * java -cp ... com.bank.logging.rescrub.LogRescrubber --output-dir DIR
+ *      [--threads N] [--chunk-size-mb N] [--rules rules.properties] FILE_OR_DIR...
+ * </pre>
+ * The rules file holds additional rules as {@code <name>.pattern} / {@code <name>.replacement}
+ * entries, compiled with {@link LinearMaskingRule}.
+ */
+public class LogRescrubber {
+
+    public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    // A chunk is mapped as one buffer and grows to the next line boundary: keep well under 2 GB
+    public static final long MAX_CHUNK_SIZE = 1024L * 1024 * 1024;
+
+    private static final int BOUNDARY_SCAN_SIZE = 64 * 1024;
+
+    private final DataMasker dataMasker;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final long chunkSize;
+
+    public LogRescrubber(DataMasker dataMasker, ExecutorService executor, int parallelism, long chunkSize) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunkSize must be between 1 and " + MAX_CHUNK_SIZE + " bytes");
+        }
+        this.dataMasker = dataMasker;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    public RescrubReport rescrub(Path input, Path output) throws IOException {
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException("Output must differ from input: " + input);
+        }
+        long startNanos = System.nanoTime();
+        List<String> ruleNames = dataMasker.ruleNames();
+        long[] matches = new long[ruleNames.size()];
+        long lines = 0;
+        long linesChanged = 0;
+        long linesNotUtf8 = 0;
+        long size;
+
+        Path partial = output.resolveSibling(output.getFileName() + ".part");
+        boolean moved = false;
+        try {
+            try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                size = in.size();
+                int window = Math.max(2, parallelism * 2);
+                Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>(window);
+                long position = 0;
+
+                try {
+                    while (position < size || !inFlight.isEmpty()) {
+                        while (position < size && inFlight.size() < window) {
+                            long end = nextLineBoundary(in, Math.min(position + chunkSize, size), size);
+                            if (end - position > Integer.MAX_VALUE) {
+                                throw new IOException("Line too long to map at offset " + position
+                                    + " in " + input);
+                            }
+                            inFlight.add(executor.submit(
+                                new ChunkTask(in, position, end, dataMasker, ruleNames.size())));
+                            position = end;
+                        }
+                        ChunkResult result = await(inFlight.poll());
+                        write(result, in, out);
+                        lines += result.lines;
+                        linesChanged += result.linesChanged;
+                        linesNotUtf8 += result.linesNotUtf8;
+                        for (int i = 0; i < matches.length; i++) {
+                            matches[i] += result.matches[i];
+                        }
+                    }
+                } finally {
+                    inFlight.forEach(future -> future.cancel(true));
+                }
+            }
+            Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                // Do not leave a half-masked copy behind
+                Files.deleteIfExists(partial);
+            }
+        }
+
+        Map<String, Long> matchesPerRule = new LinkedHashMap<>();
+        for (int i = 0; i < matches.length; i++) {
+            matchesPerRule.merge(ruleNames.get(i), matches[i], Long::sum);
+        }
+        return new RescrubReport(input, size, lines, linesChanged, linesNotUtf8, matchesPerRule,
+            Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    private static ChunkResult await(Future<ChunkResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while masking");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static long nextLineBoundary(FileChannel in, long position, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < size) {
+            scan.clear();
+            int read = in.read(scan, position);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static void write(ChunkResult result, FileChannel in, FileChannel out) throws IOException {
+        for (Segment segment : result.segments) {
+            if (segment.bytes() != null) {
+                ByteBuffer buffer = ByteBuffer.wrap(segment.bytes());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            } else {
+                long position = segment.start();
+                while (position < segment.end()) {
+                    position += in.transferTo(position, segment.end() - position, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Region of the output: either a byte range copied from the input, or masked bytes.
+     */
+    private record Segment(long start, long end, byte[] bytes) {
+
+        static Segment copy(long start, long end) {
+            return new Segment(start, end, null);
+        }
+
+        static Segment masked(byte[] bytes) {
+            return new Segment(0, 0, bytes);
+        }
+    }
+
+    private static final class ChunkResult {
+        final List<Segment> segments = new ArrayList<>();
+        final long[] matches;
+        long lines;
+        long linesChanged;
+        long linesNotUtf8;
+
+        ChunkResult(int ruleCount) {
+            this.matches = new long[ruleCount];
+        }
+    }
+
+    private static final class ChunkTask implements Callable<ChunkResult> {
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final DataMasker dataMasker;
+        private final int ruleCount;
+
+        ChunkTask(FileChannel channel, long start, long end, DataMasker dataMasker, int ruleCount) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.dataMasker = dataMasker;
+            this.ruleCount = ruleCount;
+        }
+
+        @Override
+        public ChunkResult call() throws IOException {
+            ChunkResult result = new ChunkResult(ruleCount);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            int length = buffer.limit();
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+            byte[] lineBytes = new byte[1024];
+            long copyFrom = start;
+            int lineStart = 0;
+
+            for (int i = 0; i <= length; i++) {
+                if (i < length && buffer.get(i) != '\n') {
+                    continue;
+                }
+                if (i == length && lineStart == length) {
+                    break;
+                }
+                int lineLength = i - lineStart;
+                if (lineLength > lineBytes.length) {
+                    lineBytes = new byte[Math.max(lineLength, lineBytes.length * 2)];
+                }
+                buffer.get(lineStart, lineBytes, 0, lineLength);
+                result.lines++;
+                String line;
+                try {
+                    line = decoder.decode(ByteBuffer.wrap(lineBytes, 0, lineLength)).toString();
+                } catch (CharacterCodingException e) {
+                    // Left in the copied region as is
+                    result.linesNotUtf8++;
+                    lineStart = i + 1;
+                    continue;
+                }
+                String masked = dataMasker.mask(line, result.matches);
+                // DataMasker returns the same instance when no rule matched
+                if (masked != line) {
+                    result.linesChanged++;
+                    if (start + lineStart > copyFrom) {
+                        result.segments.add(Segment.copy(copyFrom, start + lineStart));
+                    }
+                    result.segments.add(Segment.masked(masked.getBytes(StandardCharsets.UTF_8)));
+                    copyFrom = start + i;
+                }
+                lineStart = i + 1;
+            }
+            if (copyFrom < end) {
+                result.segments.add(Segment.copy(copyFrom, end));
+            }
+            return result;
+        }
+    }
+
+    // Command line
+
+    public static void main(String[] args) throws IOException {
+        Path outputDir = null;
+        Path rulesFile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long chunkSize = DEFAULT_CHUNK_SIZE;
+        List<Path> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--output-dir" -> outputDir = Path.of(requireValue(args, ++i));
+                case "--rules" -> rulesFile = Path.of(requireValue(args, ++i));
+                case "--threads" -> threads = parseThreads(requireValue(args, ++i));
+                case "--chunk-size-mb" -> chunkSize = parseChunkSizeMb(requireValue(args, ++i));
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+        if (outputDir == null || inputs.isEmpty()) {
+            System.err.println("Usage: LogRescrubber --output-dir DIR [--threads N] [--chunk-size-mb N] "
+                + "[--rules rules.properties] FILE_OR_DIR...");
+            System.exit(2);
+        }
+
+        DataMasker dataMasker = new DataMasker(rulesFile != null ? loadRules(rulesFile) : List.of());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            LogRescrubber rescrubber = new LogRescrubber(dataMasker, executor, threads, chunkSize);
+            long totalBytes = 0;
+            long startNanos = System.nanoTime();
+            for (Path input : inputs) {
+                for (Path file : listFiles(input)) {
+                    Path relative = Files.isDirectory(input) ? input.relativize(file) : file.getFileName();
+                    Path output = outputDir.resolve(relative);
+                    Files.createDirectories(output.getParent());
+                    RescrubReport report = rescrubber.rescrub(file, output);
+                    totalBytes += report.bytes();
+                    System.out.printf("%s: %d lines, %d changed, %d not UTF-8 (copied as is), %.1f MB/s, "
+                        + "matches=%s%n", file, report.lines(), report.linesChanged(), report.linesNotUtf8(),
+                        report.megabytesPerSecond(), report.matchesPerRule());
+                }
+            }
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            System.out.printf("Total: %d bytes in %.1fs (%.1f MB/s)%n",
+                totalBytes, seconds, totalBytes / 1_048_576.0 / seconds);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static int parseThreads(String value) {
+        int threads;
+        try {
+            threads = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid --threads: " + value, e);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("--threads must be at least 1: " + value);
+        }
+        return threads;
+    }
+
+    static long parseChunkSizeMb(String value) {
+        long megabytes;
+        try {
+            megabytes = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid --chunk-size-mb: " + value, e);
+        }
+        long max = MAX_CHUNK_SIZE / (1024 * 1024);
+        if (megabytes < 1 || megabytes > max) {
+            throw new IllegalArgumentException("--chunk-size-mb must be between 1 and " + max + ": " + value);
+        }
+        return megabytes * 1024 * 1024;
+    }
+
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    private static List<Path> listFiles(Path input) throws IOException {
+        if (!Files.isDirectory(input)) {
+            return List.of(input);
+        }
+        try (Stream<Path> files = Files.walk(input)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    static List<LinearMaskingRule> loadRules(Path rulesFile) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(rulesFile)) {
+            properties.load(in);
+        }
+        List<LinearMaskingRule> rules = new ArrayList<>();
+        TreeSet<String> names = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.endsWith(".pattern")) {
+                names.add(key.substring(0, key.length() - ".pattern".length()));
+            }
+        }
+        for (String name : names) {
+            rules.add(LinearMaskingRule.compile(name,
+                properties.getProperty(name + ".pattern"),
+                properties.getProperty(name + ".replacement"),
+                LinearMaskingRule.DEFAULT_MAX_STEPS_PER_CHAR));
+        }
+        return rules;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bank.logging.rescrub;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Outcome of re-scrubbing one log file.
+ */
+public record RescrubReport(Path file,
+                            long bytes,
+                            long lines,
+                            long linesChanged,
+                            long linesNotUtf8,
+                            Map<String, Long> matchesPerRule,
+                            Duration elapsed) {
+
+    public double megabytesPerSecond() {
+        double seconds = elapsed.toNanos() / 1e9;
+        return seconds > 0 ? bytes / 1_048_576.0 / seconds : 0;
+    }
+}
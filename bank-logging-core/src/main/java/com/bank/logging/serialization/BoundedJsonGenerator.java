@@ -0,0 +1,699 @@
+package com.bank.logging.serialization;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Generator enforcing {@link PayloadLimits} while tokens are written.
+ * <p>
+ * Strings are masked and then cut, containers beyond the depth limit are replaced by a marker
+ * and elements beyond the collection limit are dropped. Only elements of collections, arrays,
+ * maps and JSON trees count towards that limit, bean and record properties do not. Once the
+ * output (or the number of dropped tokens) exceeds the byte budget, serialization is aborted
+ * and {@link #finishTruncated()} closes the document so the result is still valid JSON.
+ */
+final class BoundedJsonGenerator extends JsonGeneratorDelegate {
+
+    static final String TRUNCATED_FIELD = "_truncated";
+    static final String DEPTH_MARKER = "[truncated: max depth]";
+    static final String SIZE_MARKER = "[truncated: max size]";
+
+    private final Output output;
+    private final int maxBytes;
+    private final int maxDepth;
+    private final int maxElements;
+    private final int maxStringLength;
+    private final UnaryOperator<String> stringMasker;
+
+    // Open containers, including the ones being dropped
+    private int depth;
+    private boolean[] objectAt = new boolean[16];
+    private boolean[] countedAt = new boolean[16];
+    private int[] elementsAt = new int[16];
+
+    // When >= 0, every token at or below this depth is dropped
+    private int skipDepth = -1;
+    private boolean skipReplacesContainer;
+    private int omitted;
+    private int dropped;
+
+    private boolean fieldNamePending;
+
+    BoundedJsonGenerator(JsonGenerator delegate, Output output, PayloadLimits limits,
+                         UnaryOperator<String> stringMasker) {
+        super(delegate, false);
+        this.output = output;
+        this.stringMasker = stringMasker;
+        this.maxBytes = orUnlimited(limits.maxBytes());
+        this.maxDepth = orUnlimited(limits.maxDepth());
+        this.maxElements = orUnlimited(limits.maxCollectionElements());
+        this.maxStringLength = orUnlimited(limits.maxStringLength());
+    }
+
+    int maxCollectionElements() {
+        return maxElements;
+    }
+
+    /**
+     * Writes the marker for elements a container serializer decided not to write.
+     */
+    void writeOmitted(int count) throws IOException {
+        if (skipDepth >= 0) {
+            drop();
+            return;
+        }
+        writeOmittedMarker(depth > 0 && objectAt[depth], count);
+        written();
+    }
+
+    /**
+     * Closes every open container after the byte budget was exceeded.
+     */
+    void finishTruncated() throws IOException {
+        JsonStreamContext ctx = delegate.getOutputContext();
+        if (ctx.inObject()) {
+            if (!fieldNamePending) {
+                delegate.writeFieldName(TRUNCATED_FIELD);
+            }
+            delegate.writeString(SIZE_MARKER);
+        } else if (ctx.inArray() || ctx.getEntryCount() == 0) {
+            delegate.writeString(SIZE_MARKER);
+        }
+        for (ctx = delegate.getOutputContext(); !ctx.inRoot(); ctx = delegate.getOutputContext()) {
+            if (ctx.inArray()) {
+                delegate.writeEndArray();
+            } else {
+                delegate.writeEndObject();
+            }
+        }
+    }
+
+    static boolean isLimitExceeded(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof LimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Containers
+
+    @Override
+    public void writeStartArray() throws IOException {
+        // No value: structural array, e.g. a type id wrapper
+        if (enterContainer(false, false)) {
+            delegate.writeStartArray();
+            written();
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void writeStartArray(int size) throws IOException {
+        writeStartArray(null, size);
+    }
+
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+        if (enterContainer(false, true)) {
+            delegate.writeStartArray(forValue);
+            written();
+        }
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+        if (enterContainer(false, true)) {
+            delegate.writeStartArray(forValue, size);
+            written();
+        }
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if (exitContainer()) {
+            delegate.writeEndArray();
+            written();
+        }
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        if (enterContainer(true, false)) {
+            delegate.writeStartObject();
+            written();
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue) throws IOException {
+        if (enterContainer(true, isCountedObject(forValue))) {
+            delegate.writeStartObject(forValue);
+            written();
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue, int size) throws IOException {
+        if (enterContainer(true, isCountedObject(forValue))) {
+            delegate.writeStartObject(forValue, size);
+            written();
+        }
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (exitContainer()) {
+            delegate.writeEndObject();
+            written();
+        }
+    }
+
+    // Field names
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if (admitField()) {
+            delegate.writeFieldName(name);
+            fieldWritten();
+        }
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        if (admitField()) {
+            delegate.writeFieldName(name);
+            fieldWritten();
+        }
+    }
+
+    @Override
+    public void writeFieldId(long id) throws IOException {
+        if (admitField()) {
+            delegate.writeFieldId(id);
+            fieldWritten();
+        }
+    }
+
+    // Arrays of scalars
+
+    @Override
+    public void writeArray(int[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        int count = Math.min(length, maxElements);
+        for (int i = 0; i < count; i++) {
+            writeNumber(array[offset + i]);
+        }
+        writeOmittedTail(length - count);
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(long[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        int count = Math.min(length, maxElements);
+        for (int i = 0; i < count; i++) {
+            writeNumber(array[offset + i]);
+        }
+        writeOmittedTail(length - count);
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(double[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        int count = Math.min(length, maxElements);
+        for (int i = 0; i < count; i++) {
+            writeNumber(array[offset + i]);
+        }
+        writeOmittedTail(length - count);
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(String[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        int count = Math.min(length, maxElements);
+        for (int i = 0; i < count; i++) {
+            writeString(array[offset + i]);
+        }
+        writeOmittedTail(length - count);
+        writeEndArray();
+    }
+
+    // Strings
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (admitValue()) {
+            delegate.writeString(text != null && text.length() > maxStringLength ? truncate(text) : text);
+            written();
+        }
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        if (len > maxStringLength) {
+            writeString(new String(text, offset, len));
+        } else if (admitValue()) {
+            delegate.writeString(text, offset, len);
+            written();
+        }
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+        if (text.charLength() > maxStringLength) {
+            writeString(text.getValue());
+        } else if (admitValue()) {
+            delegate.writeString(text);
+            written();
+        }
+    }
+
+    @Override
+    public void writeString(Reader reader, int len) throws IOException {
+        if (admitValue()) {
+            delegate.writeString(reader, len);
+            written();
+        }
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (admitValue()) {
+            delegate.writeRawUTF8String(text, offset, length);
+            written();
+        }
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (admitValue()) {
+            delegate.writeUTF8String(text, offset, length);
+            written();
+        }
+    }
+
+    @Override
+    public void writeBinary(Base64Variant b64variant, byte[] data, int offset, int len) throws IOException {
+        if (admitValue()) {
+            if (len > maxStringLength) {
+                delegate.writeString("[binary: " + len + " bytes]");
+            } else {
+                delegate.writeBinary(b64variant, data, offset, len);
+            }
+            written();
+        }
+    }
+
+    @Override
+    public int writeBinary(Base64Variant b64variant, InputStream data, int dataLength) throws IOException {
+        if (!admitValue()) {
+            return 0;
+        }
+        int count = delegate.writeBinary(b64variant, data, dataLength);
+        written();
+        return count;
+    }
+
+    // Raw content
+
+    @Override
+    public void writeRaw(String text) throws IOException {
+        if (admitRaw()) {
+            delegate.writeRaw(text);
+            checkSize();
+        }
+    }
+
+    @Override
+    public void writeRaw(String text, int offset, int len) throws IOException {
+        if (admitRaw()) {
+            delegate.writeRaw(text, offset, len);
+            checkSize();
+        }
+    }
+
+    @Override
+    public void writeRaw(SerializableString raw) throws IOException {
+        if (admitRaw()) {
+            delegate.writeRaw(raw);
+            checkSize();
+        }
+    }
+
+    @Override
+    public void writeRaw(char[] text, int offset, int len) throws IOException {
+        if (admitRaw()) {
+            delegate.writeRaw(text, offset, len);
+            checkSize();
+        }
+    }
+
+    @Override
+    public void writeRaw(char c) throws IOException {
+        if (admitRaw()) {
+            delegate.writeRaw(c);
+            checkSize();
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text) throws IOException {
+        if (admitValue()) {
+            delegate.writeRawValue(text);
+            written();
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text, int offset, int len) throws IOException {
+        if (admitValue()) {
+            delegate.writeRawValue(text, offset, len);
+            written();
+        }
+    }
+
+    @Override
+    public void writeRawValue(char[] text, int offset, int len) throws IOException {
+        if (admitValue()) {
+            delegate.writeRawValue(text, offset, len);
+            written();
+        }
+    }
+
+    // Other scalars
+
+    @Override
+    public void writeNumber(short v) throws IOException {
+        if (admitValue()) {
+            delegate.writeNumber(v);
+            written();
+        }
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        if (admitValue()) {
+            delegate.writeNumber(v);
+            written();
+        }
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        if (admitValue()) {
+            delegate.writeNumber(v);
+            written();
+        }
+    }
+
+    @Override
+    public void writeNumber(BigInteger v) throws IOException {
+        if (admitValue()) {
+            delegate.writeNumber(v);
+            written();
+        }
+    }
+
+    @Override
+    public void writeNumber(double v) throws IOException {
+        if (admitValue()) {
+            delegate.writeNumber(v);
+            written();
+        }
+    }
+
+    @Override
+    public void writeNumber(float v) throws IOException {
+        if (admitValue()) {
+            delegate.writeNumber(v);
+            written();
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal v) throws IOException {
+        if (admitValue()) {
+            delegate.writeNumber(v);
+            written();
+        }
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if (admitValue()) {
+            delegate.writeNumber(encodedValue);
+            written();
+        }
+    }
+
+    @Override
+    public void writeNumber(char[] encodedValueBuffer, int offset, int length) throws IOException {
+        if (admitValue()) {
+            delegate.writeNumber(encodedValueBuffer, offset, length);
+            written();
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        if (admitValue()) {
+            delegate.writeBoolean(state);
+            written();
+        }
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        if (admitValue()) {
+            delegate.writeNull();
+            written();
+        }
+    }
+
+    // Budget bookkeeping
+
+    private boolean admitValue() throws IOException {
+        if (skipDepth >= 0) {
+            if (depth == skipDepth && !objectAt[depth]) {
+                omitted++;
+            }
+            drop();
+            return false;
+        }
+        if (depth > 0 && !objectAt[depth] && countedAt[depth] && ++elementsAt[depth] > maxElements) {
+            startSkipping(false);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean admitField() throws IOException {
+        if (skipDepth >= 0) {
+            if (depth == skipDepth) {
+                omitted++;
+            }
+            drop();
+            return false;
+        }
+        if (countedAt[depth] && ++elementsAt[depth] > maxElements) {
+            startSkipping(false);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean admitRaw() throws IOException {
+        if (skipDepth >= 0) {
+            drop();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean enterContainer(boolean object, boolean counted) throws IOException {
+        boolean admitted = admitValue();
+        push(object, counted);
+        if (!admitted) {
+            return false;
+        }
+        if (depth > maxDepth) {
+            delegate.writeString(DEPTH_MARKER);
+            startSkipping(true);
+            written();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean exitContainer() throws IOException {
+        if (skipDepth < 0) {
+            depth--;
+            return true;
+        }
+        if (depth > skipDepth) {
+            depth--;
+            drop();
+            return false;
+        }
+        skipDepth = -1;
+        boolean replaced = skipReplacesContainer;
+        if (!replaced) {
+            writeOmittedMarker(objectAt[depth], omitted);
+        }
+        depth--;
+        return !replaced;
+    }
+
+    private void push(boolean object, boolean counted) {
+        depth++;
+        if (depth == objectAt.length) {
+            objectAt = Arrays.copyOf(objectAt, depth * 2);
+            countedAt = Arrays.copyOf(countedAt, depth * 2);
+            elementsAt = Arrays.copyOf(elementsAt, depth * 2);
+        }
+        objectAt[depth] = object;
+        countedAt[depth] = counted;
+        elementsAt[depth] = 0;
+    }
+
+    private void startSkipping(boolean replacesContainer) throws IOException {
+        skipDepth = depth;
+        skipReplacesContainer = replacesContainer;
+        omitted = replacesContainer ? 0 : 1;
+        if (!replacesContainer) {
+            drop();
+        }
+    }
+
+    private void writeOmittedTail(int count) throws IOException {
+        if (count > 0) {
+            writeOmitted(count);
+        }
+    }
+
+    private void writeOmittedMarker(boolean object, int count) throws IOException {
+        if (object) {
+            delegate.writeFieldName(TRUNCATED_FIELD);
+            delegate.writeString(count + " more entries");
+        } else {
+            delegate.writeString("[truncated: " + count + " more elements]");
+        }
+    }
+
+    // Masked before cutting: a PAN or IBAN cut at the limit would no longer match the rules
+    private String truncate(String text) {
+        String masked = stringMasker.apply(text);
+        if (masked.length() <= maxStringLength) {
+            return masked;
+        }
+        int end = maxStringLength;
+        if (end > 0 && Character.isHighSurrogate(masked.charAt(end - 1))) {
+            end--;
+        }
+        return masked.substring(0, end) + "...[truncated: " + (masked.length() - end) + " chars]";
+    }
+
+    // Maps and JSON trees are bounded like collections; beans and records are not
+    private static boolean isCountedObject(Object forValue) {
+        return forValue instanceof Map<?, ?> || forValue instanceof JsonNode;
+    }
+
+    private void fieldWritten() throws IOException {
+        fieldNamePending = true;
+        checkSize();
+    }
+
+    private void written() throws IOException {
+        fieldNamePending = false;
+        checkSize();
+    }
+
+    private void drop() throws IOException {
+        if (++dropped > maxBytes) {
+            throw new LimitExceededException();
+        }
+    }
+
+    private void checkSize() throws IOException {
+        if (output.length() + Math.max(0, delegate.getOutputBuffered()) > maxBytes) {
+            throw new LimitExceededException();
+        }
+    }
+
+    private static int orUnlimited(int limit) {
+        return limit > 0 ? limit : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Signals that the byte budget is spent; thrown through Jackson to stop serialization.
+     */
+    private static final class LimitExceededException extends IOException {
+
+        LimitExceededException() {
+            super("Payload size limit exceeded");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Unsynchronized character sink whose length is visible to the generator.
+     */
+    static final class Output extends Writer {
+
+        private final StringBuilder buffer = new StringBuilder(256);
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            buffer.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            buffer.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(int c) {
+            buffer.append((char) c);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        int length() {
+            return buffer.length();
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bank.logging.serialization;
+
+import com.bank.logging.masking.DataMasker;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Serializes objects to JSON within {@link PayloadLimits}.
+ * <p>
+ * Limits are enforced while streaming, so the cost of serializing a large batch object is
+ * bounded by the limits rather than by the size of the object. Truncated parts are replaced
+ * by {@code [truncated: ...]} markers and the output is always valid JSON. Strings longer than
+ * the limit go through the masker before being cut, since a cut PAN or IBAN would no longer be
+ * recognized when the whole output is masked.
+ */
+public class BoundedJsonWriter {
+
+    private final ObjectMapper objectMapper;
+    private final UnaryOperator<String> stringMasker;
+
+    public BoundedJsonWriter(ObjectMapper objectMapper) {
+        this(objectMapper, value -> DataMasker.current().mask(value));
+    }
+
+    public BoundedJsonWriter(ObjectMapper objectMapper, UnaryOperator<String> stringMasker) {
+        this.stringMasker = stringMasker;
+        this.objectMapper = objectMapper.copy()
+            .registerModule(new SimpleModule("bank-logging-bounded-json")
+                .setSerializerModifier(new TruncatingContainerSerializer.Modifier()));
+    }
+
+    public String write(Object value, PayloadLimits limits) throws JsonProcessingException {
+        BoundedJsonGenerator.Output output = new BoundedJsonGenerator.Output();
+        try (JsonGenerator generator = objectMapper.createGenerator(output)) {
+            BoundedJsonGenerator bounded = new BoundedJsonGenerator(generator, output, limits, stringMasker);
+            try {
+                objectMapper.writeValue(bounded, value);
+            } catch (IOException e) {
+                if (!BoundedJsonGenerator.isLimitExceeded(e)) {
+                    throw e;
+                }
+                bounded.finishTruncated();
+            }
+            bounded.flush();
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw JsonMappingException.fromUnexpectedIOE(e);
+        }
+        return output.toString();
+    }
+}
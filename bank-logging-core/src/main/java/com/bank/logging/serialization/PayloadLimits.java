@@ -0,0 +1,29 @@
+package com.bank.logging.serialization;
+
+/**
+ * Upper bounds applied while serializing method arguments and results for logging.
+ * A value of zero or less disables the corresponding limit.
+ *
+ * @param maxBytes              maximum size of the serialized JSON, in characters
+ * @param maxDepth              maximum nesting of objects and arrays
+ * @param maxCollectionElements maximum elements written per collection, array or map
+ * @param maxStringLength       maximum length of a single string value
+ */
+public record PayloadLimits(int maxBytes, int maxDepth, int maxCollectionElements, int maxStringLength) {
+
+    public static final PayloadLimits DEFAULT = new PayloadLimits(16_384, 10, 100, 1_024);
+
+    public static final PayloadLimits UNLIMITED = new PayloadLimits(0, 0, 0, 0);
+
+    /**
+     * Returns a copy where every limit that is not set here is taken from {@code defaults}.
+     */
+    public PayloadLimits withDefaults(PayloadLimits defaults) {
+        return new PayloadLimits(
+            maxBytes > 0 ? maxBytes : defaults.maxBytes,
+            maxDepth > 0 ? maxDepth : defaults.maxDepth,
+            maxCollectionElements > 0 ? maxCollectionElements : defaults.maxCollectionElements,
+            maxStringLength > 0 ? maxStringLength : defaults.maxStringLength
+        );
+    }
+}
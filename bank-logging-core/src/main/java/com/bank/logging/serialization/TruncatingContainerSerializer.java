@@ -0,0 +1,156 @@
+package com.bank.logging.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.type.ArrayType;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.type.MapType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Wraps collection, map and array serializers so that oversized containers stop iterating
+ * at the element limit instead of being walked completely.
+ */
+final class TruncatingContainerSerializer extends StdSerializer<Object>
+        implements ContextualSerializer, ResolvableSerializer {
+
+    private final JsonSerializer<Object> delegate;
+
+    @SuppressWarnings("unchecked")
+    TruncatingContainerSerializer(JsonSerializer<?> delegate) {
+        super(Object.class);
+        this.delegate = (JsonSerializer<Object>) delegate;
+    }
+
+    @Override
+    public void serialize(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (gen instanceof BoundedJsonGenerator bounded && isOversized(value, bounded.maxCollectionElements())) {
+            boolean map = value instanceof Map<?, ?>;
+            if (map) {
+                bounded.writeStartObject(value);
+            } else {
+                bounded.writeStartArray(value, size(value));
+            }
+            writeTruncated(value, bounded, provider);
+            if (map) {
+                bounded.writeEndObject();
+            } else {
+                bounded.writeEndArray();
+            }
+            return;
+        }
+        delegate.serialize(value, gen, provider);
+    }
+
+    @Override
+    public void serializeWithType(Object value, JsonGenerator gen, SerializerProvider provider,
+                                  TypeSerializer typeSer) throws IOException {
+        if (gen instanceof BoundedJsonGenerator bounded && isOversized(value, bounded.maxCollectionElements())) {
+            JsonToken shape = value instanceof Map<?, ?> ? JsonToken.START_OBJECT : JsonToken.START_ARRAY;
+            WritableTypeId typeId = typeSer.writeTypePrefix(bounded, typeSer.typeId(value, shape));
+            writeTruncated(value, bounded, provider);
+            typeSer.writeTypeSuffix(bounded, typeId);
+            return;
+        }
+        delegate.serializeWithType(value, gen, provider, typeSer);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, Object value) {
+        return delegate.isEmpty(provider, value);
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+            throws JsonMappingException {
+        if (delegate instanceof ContextualSerializer contextual) {
+            JsonSerializer<?> serializer = contextual.createContextual(provider, property);
+            if (serializer != delegate) {
+                return new TruncatingContainerSerializer(serializer);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (delegate instanceof ResolvableSerializer resolvable) {
+            resolvable.resolve(provider);
+        }
+    }
+
+    private static boolean isOversized(Object value, int max) {
+        return (value instanceof Collection<?> || value instanceof Object[] || value instanceof Map<?, ?>)
+            && size(value) > max;
+    }
+
+    private static int size(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return ((Object[]) value).length;
+    }
+
+    // Writes the first elements or entries and the omitted marker, inside an already open container
+    private static void writeTruncated(Object value, BoundedJsonGenerator gen,
+                                       SerializerProvider provider) throws IOException {
+        int max = gen.maxCollectionElements();
+        if (value instanceof Map<?, ?> map) {
+            Iterator<? extends Map.Entry<?, ?>> entries = map.entrySet().iterator();
+            for (int i = 0; i < max; i++) {
+                Map.Entry<?, ?> entry = entries.next();
+                provider.defaultSerializeField(String.valueOf(entry.getKey()), entry.getValue(), gen);
+            }
+            gen.writeOmitted(map.size() - max);
+            return;
+        }
+        Iterator<?> elements = value instanceof Collection<?> collection
+            ? collection.iterator()
+            : Arrays.asList((Object[]) value).iterator();
+        for (int i = 0; i < max; i++) {
+            provider.defaultSerializeValue(elements.next(), gen);
+        }
+        gen.writeOmitted(size(value) - max);
+    }
+
+    static final class Modifier extends BeanSerializerModifier {
+
+        @Override
+        public JsonSerializer<?> modifyCollectionSerializer(SerializationConfig config, CollectionType valueType,
+                                                            BeanDescription beanDesc, JsonSerializer<?> serializer) {
+            return new TruncatingContainerSerializer(serializer);
+        }
+
+        @Override
+        public JsonSerializer<?> modifyMapSerializer(SerializationConfig config, MapType valueType,
+                                                     BeanDescription beanDesc, JsonSerializer<?> serializer) {
+            return new TruncatingContainerSerializer(serializer);
+        }
+
+        @Override
+        public JsonSerializer<?> modifyArraySerializer(SerializationConfig config, ArrayType valueType,
+                                                       BeanDescription beanDesc, JsonSerializer<?> serializer) {
+            return new TruncatingContainerSerializer(serializer);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.logging.shipping;
+
+/**
+ * Body format of the bulk requests sent by {@link BulkHttpAppender}.
+ */
+public enum BulkFormat {
+
+    /** One JSON document per line, e.g. for a Logstash or Vector HTTP input. */
+    NDJSON,
+
+    /** Elasticsearch / OpenSearch {@code _bulk} API: an index action line before each document. */
+    ELASTICSEARCH
+}
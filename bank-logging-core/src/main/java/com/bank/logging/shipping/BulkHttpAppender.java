@@ -0,0 +1,424 @@
+package com.bank.logging.shipping;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Layout;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import com.bank.logging.masking.MaskingJsonLayout;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ships events to an HTTP bulk endpoint (NDJSON or Elasticsearch {@code _bulk}) without an
+ * external shipper re-parsing the console output.
+ * <p>
+ * Events are rendered by the layout ({@link MaskingJsonLayout} by default) on the logging
+ * thread and queued in memory. A single shipping thread groups them into batches of at most
+ * {@code batchSize} events / {@code maxBatchBytes}, waiting up to {@code lingerMs} after the
+ * first event, and sends them gzip-compressed. Batches that cannot be delivered (timeout,
+ * connection error, 408/429/5xx) go to a bounded disk spool; while the spool is not empty new
+ * batches are appended to it, and it is replayed oldest first with exponential backoff, so
+ * events reach the endpoint in order, including across restarts. Other 4xx responses drop
+ * the batch, and so does a spooled batch that can no longer be read. When the in-memory queue
+ * is full, new events are dropped rather than blocking.
+ * <p>
+ * Delivery is at least once: a batch that timed out may have been ingested. In Elasticsearch
+ * format each document carries a generated {@code _id}, so such replays overwrite rather than
+ * duplicate. A {@code _bulk} response reporting item-level errors is parsed: documents rejected
+ * with a retryable status are spooled again under the same {@code _id}, the others dropped.
+ */
+public class BulkHttpAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    private static final long MIN_RETRY_BACKOFF_MS = 500L;
+    private static final int MAX_REPLAYS_PER_LOOP = 16;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private Layout<ILoggingEvent> layout;
+    private String url;
+    private BulkFormat format = BulkFormat.NDJSON;
+    private String index = "logs";
+    private String authorization;
+    private int batchSize = 500;
+    private int maxBatchBytes = 1024 * 1024;
+    private long lingerMs = 1_000L;
+    private boolean compress = true;
+    private int queueSize = 8_192;
+    private String spoolDirectory;
+    private long maxSpoolBytes = 256L * 1024 * 1024;
+    private long connectTimeoutMs = 2_000L;
+    private long requestTimeoutMs = 5_000L;
+    private long maxRetryBackoffMs = 30_000L;
+
+    private final AtomicLong sentEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private volatile int spooledBatches;
+
+    private BlockingQueue<String> queue;
+    private DiskSpool spool;
+    private HttpClient client;
+    private URI uri;
+    private String actionPrefix;
+    private String idPrefix;
+    private Thread shipper;
+    private volatile boolean stopping;
+
+    // Shipping thread state
+    private long retryBackoffMs;
+    private long retryAtNanos;
+    private long sequence;
+    private boolean available = true;
+
+    @Override
+    public void start() {
+        if (url == null || url.isBlank()) {
+            addError("No url set for bulk appender [" + name + "]");
+            return;
+        }
+        if (layout == null) {
+            MaskingJsonLayout jsonLayout = new MaskingJsonLayout();
+            jsonLayout.setContext(getContext());
+            jsonLayout.start();
+            layout = jsonLayout;
+        }
+        Path spoolPath = spoolDirectory != null
+            ? Path.of(spoolDirectory)
+            : Path.of(System.getProperty("java.io.tmpdir"), "bank-logging-spool", name);
+        try {
+            spool = new DiskSpool(spoolPath, maxSpoolBytes);
+        } catch (IOException e) {
+            addError("Cannot open spool directory " + spoolPath, e);
+            return;
+        }
+        spooledBatches = spool.batches();
+        if (spooledBatches > 0) {
+            addInfo(spooledBatches + " spooled batches will be replayed from " + spoolPath);
+        }
+        uri = URI.create(url);
+        actionPrefix = "{\"index\":{\"_index\":\"" + index + "\",\"_id\":\"";
+        idPrefix = Long.toHexString(ThreadLocalRandom.current().nextLong()) + "-";
+        queue = new ArrayBlockingQueue<>(queueSize);
+        client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .build();
+        stopping = false;
+        shipper = new Thread(this::ship, "bank-log-shipper-" + name);
+        shipper.setDaemon(true);
+        shipper.start();
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        String line = layout.doLayout(event);
+        int end = line.length();
+        while (end > 0 && (line.charAt(end - 1) == '\n' || line.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        if (!queue.offer(line.substring(0, end)) && droppedEvents.getAndIncrement() % 1_000 == 0) {
+            addWarn("Bulk appender [" + name + "] queue is full, dropping events");
+        }
+    }
+
+    /**
+     * Flushes the queued events, spooling what cannot be delivered before the timeout. The
+     * spool is replayed on next start.
+     */
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        stopping = true;
+        try {
+            shipper.join(lingerMs + requestTimeoutMs + 1_000L);
+            if (shipper.isAlive()) {
+                addWarn("Bulk appender [" + name + "] did not flush in time, "
+                    + queue.size() + " events not shipped");
+                shipper.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ship() {
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                boolean backlog = !spool.isEmpty();
+                long waitMs = backlog ? Math.min(lingerMs, Math.max(0, millisUntilRetry())) : lingerMs;
+                Batch batch = nextBatch(stopping ? 0 : waitMs);
+                if (batch != null) {
+                    if (spool.isEmpty() && retryDue() && deliver(batch.payload(), compress, batch.events())) {
+                        continue;
+                    }
+                    spool(batch);
+                }
+                if (!stopping) {
+                    replay();
+                }
+            } catch (InterruptedException e) {
+                stopping = true;
+            } catch (IOException | UncheckedIOException e) {
+                addError("Bulk appender [" + name + "] spool failure", e);
+                // Do not spin on a failing disk
+                backOff();
+            }
+        }
+    }
+
+    private Batch nextBatch(long waitMs) throws InterruptedException, IOException {
+        String first = waitMs > 0 ? queue.poll(waitMs, TimeUnit.MILLISECONDS) : queue.poll();
+        if (first == null) {
+            return null;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(Math.min(maxBatchBytes, 64 * 1024));
+        int events = 0;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stopping ? 0 : lingerMs);
+        String line = first;
+        while (line != null) {
+            if (format == BulkFormat.ELASTICSEARCH) {
+                body.write((actionPrefix + idPrefix + sequence++ + "\"}}\n").getBytes(StandardCharsets.UTF_8));
+            }
+            body.write(line.getBytes(StandardCharsets.UTF_8));
+            body.write('\n');
+            events++;
+            if (events >= batchSize || body.size() >= maxBatchBytes) {
+                break;
+            }
+            line = queue.poll();
+            if (line == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0 && !stopping) {
+                    line = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        return new Batch(compress ? gzip(body) : body.toByteArray(), events);
+    }
+
+    private void spool(Batch batch) throws IOException {
+        int dropped = spool.append(batch.payload(), batch.events(), compress);
+        if (dropped > 0) {
+            droppedEvents.addAndGet(dropped);
+            addWarn("Bulk appender [" + name + "] spool is full, dropped " + dropped + " oldest events");
+        }
+        spooledBatches = spool.batches();
+    }
+
+    private void replay() throws IOException {
+        for (int i = 0; i < MAX_REPLAYS_PER_LOOP && !spool.isEmpty() && retryDue(); i++) {
+            DiskSpool.Entry entry = spool.peek();
+            byte[] payload;
+            try {
+                payload = spool.read(entry);
+            } catch (IOException e) {
+                // Deleted, truncated away or not a file: it would block the spool forever
+                int dropped = spool.quarantine(entry);
+                droppedEvents.addAndGet(dropped);
+                spooledBatches = spool.batches();
+                addError("Bulk appender [" + name + "] cannot read spooled batch " + entry.file()
+                    + ", dropping " + dropped + " events", e);
+                backOff();
+                break;
+            }
+            if (!deliver(payload, entry.compressed(), entry.events())) {
+                break;
+            }
+            spool.remove(entry);
+            spooledBatches = spool.batches();
+        }
+    }
+
+    /**
+     * Sends one batch. Returns false when it should be retried later; rejected batches are
+     * counted as dropped and reported as handled.
+     */
+    private boolean deliver(byte[] payload, boolean compressed, int events) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofMillis(requestTimeoutMs))
+            .header("Content-Type", "application/x-ndjson")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(payload));
+        if (compressed) {
+            request.header("Content-Encoding", "gzip");
+        }
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        int status;
+        String itemErrors = null;
+        try {
+            if (format == BulkFormat.ELASTICSEARCH) {
+                HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+                status = response.statusCode();
+                if (status / 100 == 2 && response.body().contains("\"errors\":true")) {
+                    itemErrors = response.body();
+                }
+            } else {
+                status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            }
+        } catch (IOException e) {
+            return failed(e.toString());
+        } catch (InterruptedException e) {
+            stopping = true;
+            return failed("interrupted");
+        }
+        if (status / 100 == 2) {
+            if (itemErrors != null && retryItems(itemErrors, payload, compressed, events) > 0) {
+                // The cluster pushed back (429): replay the spooled documents after a backoff
+                backOff();
+                return true;
+            }
+            if (itemErrors == null) {
+                sentEvents.addAndGet(events);
+            }
+            retryBackoffMs = 0;
+            if (!available) {
+                available = true;
+                addInfo("Bulk appender [" + name + "] endpoint " + uri + " is available again");
+            }
+            return true;
+        }
+        if (retryable(status)) {
+            return failed("status " + status);
+        }
+        droppedEvents.addAndGet(events);
+        addError("Bulk appender [" + name + "] batch of " + events + " events rejected with status "
+            + status + ", dropping it");
+        return true;
+    }
+
+    /**
+     * Handles a 2xx {@code _bulk} response with item-level errors, whose items are in request
+     * order. Retrying the whole batch would only overwrite the accepted documents, but a
+     * document rejected for its content would block the spool; so documents rejected with a
+     * retryable status are spooled again, with their action line and {@code _id}, and the
+     * others are dropped. Returns the number of documents spooled again.
+     */
+    private int retryItems(String response, byte[] payload, boolean compressed, int events) throws IOException {
+        JsonNode items;
+        try {
+            items = OBJECT_MAPPER.readTree(response).path("items");
+        } catch (JsonProcessingException e) {
+            items = null;
+        }
+        String[] lines = new String(compressed ? gunzip(payload) : payload, StandardCharsets.UTF_8).split("\n");
+        if (items == null || items.size() != events || lines.length != 2 * events) {
+            sentEvents.addAndGet(events);
+            addWarn("Bulk appender [" + name + "] some documents were rejected by " + uri
+                + " and the response could not be matched to the batch");
+            return 0;
+        }
+        ByteArrayOutputStream retry = new ByteArrayOutputStream();
+        int retried = 0;
+        int rejected = 0;
+        for (int i = 0; i < events; i++) {
+            int itemStatus = items.get(i).path("index").path("status").asInt();
+            if (itemStatus / 100 == 2) {
+                continue;
+            }
+            if (retryable(itemStatus)) {
+                retry.write((lines[2 * i] + "\n" + lines[2 * i + 1] + "\n").getBytes(StandardCharsets.UTF_8));
+                retried++;
+            } else {
+                rejected++;
+            }
+        }
+        sentEvents.addAndGet(events - retried - rejected);
+        if (rejected > 0) {
+            droppedEvents.addAndGet(rejected);
+            addError("Bulk appender [" + name + "] " + rejected + " documents rejected by " + uri + ", dropping them");
+        }
+        if (retried > 0) {
+            spool(new Batch(compress ? gzip(retry) : retry.toByteArray(), retried));
+            addWarn("Bulk appender [" + name + "] " + retried + " documents pushed back by " + uri
+                + ", spooled for retry");
+        }
+        return retried;
+    }
+
+    private static boolean retryable(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    private boolean failed(String reason) {
+        backOff();
+        if (available) {
+            available = false;
+            addWarn("Bulk appender [" + name + "] endpoint " + uri + " unavailable (" + reason
+                + "), spooling batches");
+        }
+        return false;
+    }
+
+    private void backOff() {
+        retryBackoffMs = Math.min(Math.max(retryBackoffMs * 2, MIN_RETRY_BACKOFF_MS), maxRetryBackoffMs);
+        retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryBackoffMs);
+    }
+
+    private boolean retryDue() {
+        return retryBackoffMs == 0 || System.nanoTime() - retryAtNanos >= 0;
+    }
+
+    private long millisUntilRetry() {
+        return retryBackoffMs == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(retryAtNanos - System.nanoTime());
+    }
+
+    private static byte[] gzip(ByteArrayOutputStream body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(512, body.size() / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, 8 * 1024)) {
+            body.writeTo(out);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] payload) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private record Batch(byte[] payload, int events) {
+    }
+
+    public long getSentEvents() { return sentEvents.get(); }
+    public long getDroppedEvents() { return droppedEvents.get(); }
+    public int getSpooledBatches() { return spooledBatches; }
+    public int getQueuedEvents() { return queue != null ? queue.size() : 0; }
+
+    // Setters for Logback configuration
+    public void setLayout(Layout<ILoggingEvent> layout) { this.layout = layout; }
+    public void setUrl(String url) { this.url = url; }
+    public void setFormat(BulkFormat format) { this.format = format; }
+    public void setIndex(String index) { this.index = index; }
+    public void setAuthorization(String authorization) { this.authorization = authorization; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public void setMaxBatchBytes(int maxBatchBytes) { this.maxBatchBytes = maxBatchBytes; }
+    public void setLingerMs(long lingerMs) { this.lingerMs = lingerMs; }
+    public void setCompress(boolean compress) { this.compress = compress; }
+    public void setQueueSize(int queueSize) { this.queueSize = queueSize; }
+    public void setSpoolDirectory(String spoolDirectory) { this.spoolDirectory = spoolDirectory; }
+    public void setMaxSpoolBytes(long maxSpoolBytes) { this.maxSpoolBytes = maxSpoolBytes; }
+    public void setConnectTimeoutMs(long connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+    public void setRequestTimeoutMs(long requestTimeoutMs) { this.requestTimeoutMs = requestTimeoutMs; }
+    public void setMaxRetryBackoffMs(long maxRetryBackoffMs) { this.maxRetryBackoffMs = maxRetryBackoffMs; }
+}
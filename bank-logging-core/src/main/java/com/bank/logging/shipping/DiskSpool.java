@@ -0,0 +1,147 @@
+package com.bank.logging.shipping;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded on-disk FIFO of batches waiting to be shipped, one file per batch, named after a
+ * sequence number so that batches left by a previous run are replayed first and in order.
+ * When full, the oldest batches are dropped. Entries that cannot be read are set aside as
+ * {@code .corrupt} files; they count against the size limit and are deleted first to make
+ * room. Only used from the shipping thread.
+ */
+final class DiskSpool {
+
+    private static final Pattern FILE_NAME = Pattern.compile("(\\d{16})-(\\d+)\\.ndjson(\\.gz)?(\\.corrupt)?");
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private final Deque<Entry> corrupt = new ArrayDeque<>();
+    private long bytes;
+    private long nextSequence;
+
+    DiskSpool(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+
+        List<Entry> existing = new ArrayList<>();
+        List<Entry> quarantined = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher matcher = FILE_NAME.matcher(name);
+                if (matcher.matches()) {
+                    Entry entry = new Entry(file, Long.parseLong(matcher.group(1)),
+                        Integer.parseInt(matcher.group(2)), matcher.group(3) != null, Files.size(file));
+                    (matcher.group(4) != null ? quarantined : existing).add(entry);
+                } else if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        quarantined.sort(Comparator.comparingLong(Entry::sequence));
+        for (Entry entry : quarantined) {
+            corrupt.addLast(entry);
+            bytes += entry.size();
+        }
+        existing.sort(Comparator.comparingLong(Entry::sequence));
+        for (Entry entry : existing) {
+            entries.addLast(entry);
+            bytes += entry.size();
+            nextSequence = entry.sequence() + 1;
+        }
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    int batches() {
+        return entries.size();
+    }
+
+    /**
+     * Appends a batch and returns the number of events dropped to stay within the size limit,
+     * including the batch itself if it is larger than the whole spool.
+     */
+    int append(byte[] payload, int events, boolean compressed) throws IOException {
+        if (payload.length > maxBytes) {
+            return events;
+        }
+        int dropped = 0;
+        while (bytes + payload.length > maxBytes && !corrupt.isEmpty()) {
+            Entry entry = corrupt.removeFirst();
+            bytes -= entry.size();
+            try {
+                Files.deleteIfExists(entry.file());
+            } catch (IOException e) {
+                // Not an empty file or directory: left for inspection, no longer accounted for
+            }
+        }
+        while (bytes + payload.length > maxBytes && !entries.isEmpty()) {
+            dropped += remove(entries.peekFirst());
+        }
+        long sequence = nextSequence++;
+        Path file = directory.resolve(String.format("%016d-%d.ndjson%s", sequence, events, compressed ? ".gz" : ""));
+        Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(partial, payload);
+        Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+        entries.addLast(new Entry(file, sequence, events, compressed, payload.length));
+        bytes += payload.length;
+        return dropped;
+    }
+
+    Entry peek() {
+        return entries.peekFirst();
+    }
+
+    byte[] read(Entry entry) throws IOException {
+        return Files.readAllBytes(entry.file());
+    }
+
+    /**
+     * Removes the entry and returns its number of events.
+     */
+    int remove(Entry entry) throws IOException {
+        if (!entries.remove(entry)) {
+            // Already dropped to make room
+            return 0;
+        }
+        bytes -= entry.size();
+        Files.deleteIfExists(entry.file());
+        return entry.events();
+    }
+
+    /**
+     * Takes an unreadable entry out of the queue, renaming its file to {@code .corrupt} for
+     * inspection, and returns its number of events.
+     */
+    int quarantine(Entry entry) {
+        entries.remove(entry);
+        Path file = entry.file();
+        Path target = file.resolveSibling(file.getFileName() + ".corrupt");
+        try {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            corrupt.addLast(new Entry(target, entry.sequence(), entry.events(), entry.compressed(), entry.size()));
+        } catch (IOException e) {
+            // Already gone, or read again and set aside on next start
+            bytes -= entry.size();
+        }
+        return entry.events();
+    }
+
+    record Entry(Path file, long sequence, int events, boolean compressed, long size) {
+    }
+}
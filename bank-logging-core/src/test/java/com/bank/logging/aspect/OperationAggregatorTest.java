@@ -0,0 +1,40 @@
+package com.bank.logging.aspect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OperationAggregatorTest {
+
+    @Test
+    void foldsDeadThreadsWithoutLosingTheirCounts() throws InterruptedException {
+        OperationAggregator aggregator = new OperationAggregator();
+
+        // Never drained, as with aggregate-flush-interval-ms=0 and no batch
+        for (int i = 0; i < 5_000; i++) {
+            Thread.ofVirtual().start(() -> aggregator.record("TRANSFER", 1_000, OperationAggregator.Outcome.SUCCESS))
+                .join();
+        }
+
+        assertThat(aggregator.accumulatorCount()).isLessThanOrEqualTo(128);
+        List<OperationAggregator.Summary> summaries = aggregator.drain();
+        assertThat(summaries).singleElement()
+            .satisfies(summary -> assertThat(summary.count()).isEqualTo(5_000));
+        assertThat(aggregator.drain()).isEmpty();
+    }
+
+    @Test
+    void batchRefusesCallsCompletingAfterItClosed() {
+        OperationAggregator aggregator = new OperationAggregator();
+        OperationAggregator.Batch batch = aggregator.openBatch();
+
+        assertThat(batch.record("TRANSFER", 1_000, OperationAggregator.Outcome.CANCELLED)).isTrue();
+        assertThat(batch.close()).singleElement()
+            .satisfies(summary -> assertThat(summary.cancelled()).isEqualTo(1));
+
+        assertThat(batch.record("TRANSFER", 1_000, OperationAggregator.Outcome.SUCCESS)).isFalse();
+        assertThat(aggregator.drain()).isEmpty();
+    }
+}
@@ -0,0 +1,295 @@
+package com.bank.logging.aspect;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.bank.logging.annotation.PaymentBatchLog;
+import com.bank.logging.annotation.PaymentLog;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class PaymentLoggingAspectTest {
+
+    private static final String SUMMARY = "Payment operation summary: ";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Logger logger = (Logger) LoggerFactory.getLogger(PaymentLoggingAspect.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final PaymentLoggingAspect aspect = new PaymentLoggingAspect();
+    private Payments payments;
+    private Batches batches;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        aspect.setAggregateFlushIntervalMs(0);
+        payments = proxy(new Payments());
+        batches = proxy(new Batches());
+    }
+
+    @AfterEach
+    void tearDown() {
+        aspect.close();
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+        logger.setAdditive(true);
+    }
+
+    @Test
+    void concurrentBatchesOnlyReportTheirOwnCalls() throws Exception {
+        CyclicBarrier allRecorded = new CyclicBarrier(3);
+        Thread nightly = Thread.ofPlatform().start(() -> batches.nightly(payments, 5, allRecorded));
+        Thread intraday = Thread.ofPlatform().start(() -> batches.intraday(payments, 3, allRecorded));
+        Thread web = Thread.ofPlatform().start(() -> {
+            transfers(payments, 7);
+            await(allRecorded);
+        });
+        nightly.join();
+        intraday.join();
+        web.join();
+
+        aspect.flushAggregates("periodic");
+
+        List<Map<String, Object>> summaries = summaries();
+        assertThat(summaries).hasSize(3);
+        assertThat(summary(summaries, "end-of-batch:nightly"))
+            .containsEntry("scope", "batch").containsEntry("count", 5).containsEntry("errors", 1);
+        assertThat(summary(summaries, "end-of-batch:intraday"))
+            .containsEntry("scope", "batch").containsEntry("count", 3).containsEntry("errors", 1);
+        assertThat(summary(summaries, "periodic"))
+            .containsEntry("scope", "global").containsEntry("count", 7).containsEntry("errors", 1);
+    }
+
+    @Test
+    void nestedBatchKeepsItsCallsApartFromTheOuterOne() {
+        batches.outer(batches, payments);
+
+        List<Map<String, Object>> summaries = summaries();
+        assertThat(summary(summaries, "end-of-batch:inner")).containsEntry("count", 2);
+        assertThat(summary(summaries, "end-of-batch:outer")).containsEntry("count", 1);
+    }
+
+    @Test
+    void cancelledCallsAreCountedInTheSummary() {
+        Future<String> pending = payments.pending(new FutureTask<>(() -> "done"));
+        pending.cancel(true);
+        assertThatIllegalStateException().isThrownBy(() -> payments.transfer(true));
+
+        aspect.flushAggregates("periodic");
+
+        assertThat(summaries()).hasSize(2);
+        assertThat(summary(summaries(), "periodic", "PENDING"))
+            .containsEntry("count", 1).containsEntry("cancelled", 1).containsEntry("errors", 0);
+        assertThat(summary(summaries(), "periodic", "TRANSFER"))
+            .containsEntry("count", 1).containsEntry("cancelled", 0).containsEntry("errors", 1);
+    }
+
+    @Test
+    void completionStagesAreReportedWhenTheyComplete() {
+        CompletableFuture<String> succeeding = new CompletableFuture<>();
+        CompletableFuture<String> failing = new CompletableFuture<>();
+        payments.stage(succeeding);
+        payments.stage(failing);
+        aspect.flushAggregates("before");
+
+        succeeding.complete("done");
+        failing.completeExceptionally(new IllegalStateException("refused"));
+        aspect.flushAggregates("periodic");
+
+        assertThat(summaries()).hasSize(1);
+        assertThat(summary(summaries(), "periodic", "STAGE"))
+            .containsEntry("count", 2).containsEntry("errors", 1).containsEntry("cancelled", 0);
+    }
+
+    @Test
+    void reactiveResultsAreReportedOnCompletionAndCancellation() {
+        payments.mono(Mono.just("done")).block();
+        payments.mono(Mono.never()).subscribe().dispose();
+        payments.flux(Flux.range(1, 3)).blockLast();
+        payments.flux(Flux.never()).subscribe().dispose();
+        assertThatIllegalStateException()
+            .isThrownBy(() -> payments.flux(Flux.error(new IllegalStateException("refused"))).blockLast());
+
+        aspect.flushAggregates("periodic");
+
+        assertThat(summary(summaries(), "periodic", "MONO"))
+            .containsEntry("count", 2).containsEntry("errors", 0).containsEntry("cancelled", 1);
+        assertThat(summary(summaries(), "periodic", "FLUX"))
+            .containsEntry("count", 3).containsEntry("errors", 1).containsEntry("cancelled", 1);
+    }
+
+    @Test
+    void futureSubtypesAreReportedWithoutBeingReplaced() {
+        FutureTask<String> succeeding = new FutureTask<>(() -> "done");
+        FutureTask<String> cancelled = new FutureTask<>(() -> "never");
+
+        assertThat(payments.task(succeeding)).isSameAs(succeeding);
+        assertThat(payments.task(cancelled)).isSameAs(cancelled);
+        succeeding.run();
+        cancelled.cancel(true);
+
+        // Reported from watcher threads, possibly across several flushes
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (total("TASK", "count") < 2 && System.nanoTime() < deadline) {
+            aspect.flushAggregates("periodic");
+            sleep(10);
+        }
+        assertThat(total("TASK", "count")).isEqualTo(2);
+        assertThat(total("TASK", "cancelled")).isEqualTo(1);
+        assertThat(total("TASK", "errors")).isZero();
+    }
+
+    private int total(String operation, String field) {
+        return summaries().stream()
+            .filter(summary -> operation.equals(summary.get("operation")))
+            .mapToInt(summary -> (Integer) summary.get(field))
+            .sum();
+    }
+
+    private List<Map<String, Object>> summaries() {
+        return appender.list.stream()
+            .map(ILoggingEvent::getFormattedMessage)
+            .filter(message -> message.startsWith(SUMMARY))
+            .map(message -> {
+                try {
+                    return objectMapper.readValue(message.substring(SUMMARY.length()),
+                        new TypeReference<Map<String, Object>>() {});
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            })
+            .toList();
+    }
+
+    private static Map<String, Object> summary(List<Map<String, Object>> summaries, String trigger) {
+        return summary(summaries, trigger, "TRANSFER");
+    }
+
+    private static Map<String, Object> summary(List<Map<String, Object>> summaries, String trigger, String operation) {
+        return summaries.stream()
+            .filter(summary -> trigger.equals(summary.get("trigger")) && operation.equals(summary.get("operation")))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("No " + operation + " summary for " + trigger + ": " + summaries));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return (T) factory.getProxy();
+    }
+
+    // The last call fails
+    private static void transfers(Payments payments, int calls) {
+        for (int i = 0; i < calls; i++) {
+            try {
+                payments.transfer(i == calls - 1);
+            } catch (IllegalStateException expected) {
+                // Counted as an error
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class Payments {
+
+        @PaymentLog(operation = "TRANSFER", aggregate = true)
+        public void transfer(boolean fail) {
+            if (fail) {
+                throw new IllegalStateException("refused");
+            }
+        }
+
+        @PaymentLog(operation = "PENDING", aggregate = true)
+        public Future<String> pending(FutureTask<String> task) {
+            return task;
+        }
+
+        @PaymentLog(operation = "TASK", aggregate = true)
+        public FutureTask<String> task(FutureTask<String> task) {
+            return task;
+        }
+
+        @PaymentLog(operation = "STAGE", aggregate = true)
+        public CompletionStage<String> stage(CompletableFuture<String> future) {
+            return future;
+        }
+
+        @PaymentLog(operation = "MONO", aggregate = true)
+        public Mono<String> mono(Mono<String> mono) {
+            return mono;
+        }
+
+        @PaymentLog(operation = "FLUX", aggregate = true)
+        public Flux<Integer> flux(Flux<Integer> flux) {
+            return flux;
+        }
+    }
+
+    static class Batches {
+
+        @PaymentBatchLog
+        public void nightly(Payments payments, int calls, CyclicBarrier allRecorded) {
+            transfers(payments, calls);
+            // Every batch is still open while the others record
+            await(allRecorded);
+        }
+
+        @PaymentBatchLog(name = "intraday")
+        public void intraday(Payments payments, int calls, CyclicBarrier allRecorded) {
+            transfers(payments, calls);
+            await(allRecorded);
+        }
+
+        @PaymentBatchLog
+        public void outer(Batches self, Payments payments) {
+            payments.transfer(false);
+            self.inner(payments);
+        }
+
+        @PaymentBatchLog
+        public void inner(Payments payments) {
+            payments.transfer(false);
+            payments.transfer(false);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.bank.logging.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.bank.logging.mdc.MdcKeys;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class CorrelationIdFilterTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(CorrelationIdFilter.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final List<String> seenByDownstreamFilter = new CopyOnWriteArrayList<>();
+    private final Payments controller = new Payments();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.DEBUG);
+        // Runs after CorrelationIdFilter on every dispatch, initial and async
+        Filter downstream = (request, response, chain) -> {
+            seenByDownstreamFilter.add(request.getDispatcherType() + ":" + MDC.get(MdcKeys.CORRELATION_ID));
+            chain.doFilter(request, response);
+        };
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .addFilters(new CorrelationIdFilter(), downstream)
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+        MDC.clear();
+    }
+
+    @Test
+    void callableThreadSeesTheRequestContext() throws Exception {
+        MvcResult result = mockMvc.perform(get("/callable").header(MdcKeys.HEADER_CORRELATION_ID, "corr-1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertThat(result.getResponse().getHeader(MdcKeys.HEADER_CORRELATION_ID)).isEqualTo("corr-1");
+
+        MvcResult dispatched = mockMvc.perform(asyncDispatch(result)).andReturn();
+
+        assertThat(dispatched.getResponse().getContentAsString()).isEqualTo("corr-1");
+
+        assertThat(controller.callableThread).isNotEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    void asyncDispatchRebindsTheContext() throws Exception {
+        MvcResult result = mockMvc.perform(get("/deferred").header(MdcKeys.HEADER_CORRELATION_ID, "corr-2"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertThat(MDC.get(MdcKeys.CORRELATION_ID)).isNull();
+
+        controller.deferred.setResult("done");
+        MvcResult dispatched = mockMvc.perform(asyncDispatch(result)).andReturn();
+
+        assertThat(dispatched.getResponse().getContentAsString()).isEqualTo("done");
+        assertThat(seenByDownstreamFilter).containsExactly("REQUEST:corr-2", "ASYNC:corr-2");
+        assertThat(MDC.get(MdcKeys.CORRELATION_ID)).isNull();
+    }
+
+    @Test
+    void latencyIsRecordedOnceWhenTheAsyncRequestCompletes() throws Exception {
+        MvcResult result = mockMvc.perform(get("/deferred"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertThat(result.getRequest().getAttribute(CorrelationIdFilter.DURATION_ATTRIBUTE)).isNull();
+        assertThat(completions()).isEmpty();
+
+        controller.deferred.setResult("done");
+        // MockMvc completes the async context at the end of the async dispatch
+        mockMvc.perform(asyncDispatch(result));
+
+        assertThat(result.getRequest().getAttribute(CorrelationIdFilter.DURATION_ATTRIBUTE)).isInstanceOf(Long.class);
+        assertThat(completions()).singleElement().asString().endsWith("(async=true)");
+    }
+
+    @Test
+    void latencyIsRecordedOnTheFirstDispatchForSynchronousRequests() throws Exception {
+        MvcResult result = mockMvc.perform(get("/sync")).andReturn();
+
+        assertThat(result.getRequest().getAttribute(CorrelationIdFilter.DURATION_ATTRIBUTE)).isInstanceOf(Long.class);
+        assertThat(completions()).singleElement().asString().endsWith("(async=false)");
+    }
+
+    private List<String> completions() {
+        return appender.list.stream()
+            .map(ILoggingEvent::getFormattedMessage)
+            .filter(message -> message.startsWith("Request completed"))
+            .toList();
+    }
+
+    @RestController
+    static class Payments {
+
+        volatile String callableThread;
+        volatile DeferredResult<String> deferred;
+
+        @GetMapping("/sync")
+        String sync() {
+            return "done";
+        }
+
+        @GetMapping("/callable")
+        Callable<String> callable() {
+            return () -> {
+                callableThread = Thread.currentThread().getName();
+                return MDC.get(MdcKeys.CORRELATION_ID);
+            };
+        }
+
+        @GetMapping("/deferred")
+        DeferredResult<String> deferred() {
+            deferred = new DeferredResult<>();
+            return deferred;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.bank.logging.flightrecorder;
+
+import ch.qos.logback.classic.Level;
+import com.bank.logging.masking.DataMasker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Records from 1 to 16 threads into a single-stripe ring and into a ring with the maximum
+ * number of stripes, with and without masking on write, and prints the wall-clock cost per
+ * event. Not a unit test: run it with
+ * {@code java -cp <test classpath> com.bank.logging.flightrecorder.FlightRecorderContentionBenchmark}.
+ */
+final class FlightRecorderContentionBenchmark {
+
+    private static final long CAPACITY = 16L * 1024 * 1024;
+    private static final int EVENTS_PER_THREAD = 200_000;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    private FlightRecorderContentionBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("flight-recorder-bench");
+        System.out.printf("%-20s %8s %12s%n", "ring", "threads", "ns/event");
+        for (boolean masked : new boolean[] {false, true}) {
+            DataMasker masker = masked ? new DataMasker() : null;
+            String suffix = masked ? " masked" : "";
+            for (int threads : THREADS) {
+                run("1 stripe" + suffix, dir, threads, 1, masker);
+                run(FlightRecorder.MAX_STRIPES + " stripes" + suffix, dir, threads, FlightRecorder.MAX_STRIPES, masker);
+            }
+        }
+    }
+
+    private static void run(String name, Path dir, int threads, int stripes, DataMasker masker) throws Exception {
+        Path file = dir.resolve("ring-" + System.nanoTime());
+        try (FlightRecorder recorder = FlightRecorder.open(file, CAPACITY, stripes, masker)) {
+            // Warm-up round, then the measured one
+            record(recorder, threads);
+            long nanos = record(recorder, threads);
+            System.out.printf("%-20s %8d %12.1f%n", name, threads,
+                (double) nanos / ((long) threads * EVENTS_PER_THREAD));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long record(FlightRecorder recorder, int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            String thread = "worker-" + t;
+            Thread.ofPlatform().start(() -> {
+                Object[] params = new Object[2];
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < EVENTS_PER_THREAD; i++) {
+                    params[0] = i;
+                    params[1] = "EUR";
+                    recorder.record(i, Level.DEBUG, "com.bank.payments.PaymentService", thread, "corr-1", "tx-1",
+                        "payment {} accepted in {}", params, null);
+                }
+                done.countDown();
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+}
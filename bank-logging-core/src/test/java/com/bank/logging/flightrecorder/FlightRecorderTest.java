@@ -0,0 +1,239 @@
+package com.bank.logging.flightrecorder;
+
+import ch.qos.logback.classic.Level;
+import com.bank.logging.masking.DataMasker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecorderTest {
+
+    private static final String PAN = "4111111111111111";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryField() throws IOException {
+        try (FlightRecorder recorder = open(1, null)) {
+            IllegalStateException error = new IllegalStateException("refused");
+            recorder.record(1_700_000_000_000L, Level.WARN, "com.bank.Payments", "http-1", "corr-1", "tx-1",
+                "payment refused", error);
+            recorder.record(1_700_000_000_001L, Level.DEBUG, "com.bank.Payments", "http-2", null, null,
+                "no context", null);
+
+            List<RecordedEvent> events = read(recorder);
+
+            assertThat(events).hasSize(2);
+            RecordedEvent first = events.get(0);
+            assertThat(first.getSequence()).isEqualTo(1);
+            assertThat(first.getTimeStamp()).isEqualTo(1_700_000_000_000L);
+            assertThat(first.getLevel()).isEqualTo(Level.WARN);
+            assertThat(first.getLoggerName()).isEqualTo("com.bank.Payments");
+            assertThat(first.getThreadName()).isEqualTo("http-1");
+            assertThat(first.getMDCPropertyMap()).containsEntry("correlation_id", "corr-1")
+                .containsEntry("transaction_id", "tx-1");
+            assertThat(first.getFormattedMessage()).isEqualTo("payment refused");
+            assertThat(first.getThrowableProxy().getClassName()).isEqualTo(IllegalStateException.class.getName());
+            assertThat(first.getThrowableProxy().getMessage()).isEqualTo("refused");
+            assertThat(first.getThrowableProxy().getStackTraceElementProxyArray()[0].getStackTraceElement())
+                .hasToString(error.getStackTrace()[0].toString());
+            assertThat(events.get(1).getMDCPropertyMap()).isEmpty();
+            assertThat(events.get(1).getThrowableProxy()).isNull();
+        }
+    }
+
+    @Test
+    void formatsParametersWhenDecoding() throws IOException {
+        try (FlightRecorder recorder = open(1, null)) {
+            RuntimeException error = new RuntimeException("timeout");
+            recorder.record(0, Level.INFO, "l", "t", null, null, "paid {} with {} in {}",
+                new Object[] {42, new int[] {1, 2}, "{}", error}, null);
+
+            RecordedEvent event = read(recorder).get(0);
+
+            assertThat(event.getFormattedMessage()).isEqualTo("paid 42 with [1, 2] in {}");
+            assertThat(event.getThrowableProxy().getMessage()).isEqualTo("timeout");
+        }
+    }
+
+    @Test
+    void truncatesWithoutSplittingSurrogatePairs() throws IOException {
+        try (FlightRecorder recorder = open(1, null)) {
+            recorder.setMaxMessageLength(10);
+            // The emoji takes chars 9 and 10: cutting at 10 would split it
+            recorder.record(0, Level.INFO, "x".repeat(2_000), "t", null, null, "abcdefghi😀xyz", null);
+            recorder.record(0, Level.INFO, "l", "t", null, null, "ok 😀 \uDE00 \uD83D", null);
+            recorder.record(0, Level.INFO, "l", "t", null, null, "café €", null);
+
+            List<RecordedEvent> events = read(recorder);
+
+            assertThat(events.get(0).getFormattedMessage()).isEqualTo("abcdefghi");
+            assertThat(events.get(0).getLoggerName()).hasSize(FlightRecorder.MAX_SHORT_STRING);
+            // Unpaired surrogates cannot be encoded as UTF-8
+            assertThat(events.get(1).getFormattedMessage()).isEqualTo("ok 😀 ? ?");
+            assertThat(events.get(2).getFormattedMessage()).isEqualTo("café €");
+        }
+    }
+
+    @Test
+    void wrapsKeepingTheNewestEventsInOrder() throws IOException {
+        try (FlightRecorder recorder = open(1, null)) {
+            for (int i = 1; i <= 5_000; i++) {
+                recorder.record(i, Level.INFO, "l", "t", null, null, "event " + i + " " + "x".repeat(i % 97), null);
+            }
+
+            List<RecordedEvent> events = read(recorder);
+
+            assertThat(events.size()).isBetween(100, 4_999);
+            assertThat(events.get(events.size() - 1).getSequence()).isEqualTo(5_000);
+            for (int i = 0; i < events.size(); i++) {
+                RecordedEvent event = events.get(i);
+                long expected = 5_000 - events.size() + 1 + i;
+                assertThat(event.getSequence()).isEqualTo(expected);
+                assertThat(event.getFormattedMessage()).startsWith("event " + expected + " ");
+            }
+        }
+    }
+
+    @Test
+    void keepsEventsAcrossReopen() throws IOException {
+        try (FlightRecorder recorder = open(4, null)) {
+            recorder.record(0, Level.INFO, "l", "t", null, null, "before restart", null);
+        }
+        try (FlightRecorder recorder = FlightRecorder.open(dir.resolve("ring"), 256 * 1024, 1, null)) {
+            recorder.record(0, Level.INFO, "l", "t", null, null, "after restart", null);
+
+            List<RecordedEvent> events = read(recorder);
+
+            assertThat(recorder.stripeCount()).isEqualTo(4);
+            assertThat(events).extracting(RecordedEvent::getFormattedMessage)
+                .containsExactly("before restart", "after restart");
+            assertThat(events).extracting(RecordedEvent::getSequence).containsExactly(1L, 2L);
+        }
+    }
+
+    @Test
+    void masksBeforeWritingToTheFile() throws IOException {
+        try (FlightRecorder recorder = open(1, new DataMasker())) {
+            recorder.record(0, Level.INFO, "l", "t", null, null, "card " + PAN + " and {}",
+                new Object[] {"pan=" + PAN}, new IllegalStateException("refused " + PAN));
+            recorder.close();
+
+            String file = new String(Files.readAllBytes(dir.resolve("ring")), StandardCharsets.ISO_8859_1);
+            assertThat(file).doesNotContain(PAN).contains("411111******1111");
+        }
+    }
+
+    @Test
+    void masksParametersInTheContextOfTheMessage() throws IOException {
+        try (FlightRecorder recorder = open(1, new DataMasker())) {
+            // Neither the pattern nor the parameter alone looks like a CVV
+            recorder.record(0, Level.INFO, "l", "t", null, null, "cvv={} for {}",
+                new Object[] {"737", "order"}, null);
+            recorder.close();
+
+            String file = new String(Files.readAllBytes(dir.resolve("ring")), StandardCharsets.ISO_8859_1);
+            assertThat(file).doesNotContain("737").contains("cvv:*** for order");
+        }
+    }
+
+    @Test
+    void countsEventsTooLargeForTheRing() throws IOException {
+        try (FlightRecorder recorder = open(1, null)) {
+            // More than half of the 256 KB ring
+            recorder.setMaxMessageLength(200 * 1024);
+
+            recorder.record(0, Level.INFO, "l", "t", null, null, "y".repeat(200 * 1024), null);
+            recorder.record(1, Level.INFO, "l", "t", null, null, "kept", null);
+
+            assertThat(recorder.getDroppedEvents()).isEqualTo(1);
+            assertThat(read(recorder)).extracting(RecordedEvent::getFormattedMessage).containsExactly("kept");
+        }
+    }
+
+    @Test
+    void dumpsMaskedEvenWhenStoredRaw() throws IOException {
+        try (FlightRecorder recorder = open(1, null)) {
+            recorder.record(0, Level.INFO, "l", "t", null, null, "card {}", new Object[] {PAN}, null);
+            StringWriter out = new StringWriter();
+
+            assertThat(recorder.dump(out)).isEqualTo(1);
+            assertThat(out.toString()).doesNotContain(PAN).contains("411111******1111");
+        }
+    }
+
+    @Test
+    void readsConsistentlyWhileThreadsWrite() throws Exception {
+        Pattern wellFormed = Pattern.compile("w(\\d+)-(\\d+)-x+");
+        try (FlightRecorder recorder = open(4, null)) {
+            int writers = 8;
+            CountDownLatch done = new CountDownLatch(writers);
+            AtomicBoolean reading = new AtomicBoolean(true);
+            AtomicReference<String> failure = new AtomicReference<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        recorder.record(i, Level.INFO, "l", "w" + writer, null, null,
+                            "w" + writer + "-" + i + "-" + "x".repeat(1 + i % 61), null);
+                    }
+                    done.countDown();
+                });
+            }
+            Thread reader = Thread.ofPlatform().start(() -> {
+                while (reading.get()) {
+                    long[] lastSequence = {0};
+                    int[] lastPerWriter = new int[writers];
+                    Arrays.fill(lastPerWriter, -1);
+                    recorder.forEach(event -> {
+                        Matcher matcher = wellFormed.matcher(event.getFormattedMessage());
+                        if (event.getSequence() <= lastSequence[0] || !matcher.matches()) {
+                            failure.compareAndSet(null, event.getSequence() + ": " + event.getFormattedMessage());
+                            return;
+                        }
+                        int writer = Integer.parseInt(matcher.group(1));
+                        int index = Integer.parseInt(matcher.group(2));
+                        if (index <= lastPerWriter[writer] || !event.getThreadName().equals("w" + writer)) {
+                            failure.compareAndSet(null, "out of order: " + event.getFormattedMessage());
+                        }
+                        lastPerWriter[writer] = index;
+                        lastSequence[0] = event.getSequence();
+                    });
+                }
+            });
+            done.await();
+            reading.set(false);
+            reader.join();
+
+            assertThat(failure.get()).isNull();
+            List<RecordedEvent> events = read(recorder);
+            assertThat(events.get(events.size() - 1).getSequence()).isEqualTo(writers * 20_000L);
+        }
+    }
+
+    private FlightRecorder open(int stripes, DataMasker dataMasker) throws IOException {
+        return FlightRecorder.open(dir.resolve("ring"), 256 * 1024, stripes, dataMasker);
+    }
+
+    private static List<RecordedEvent> read(FlightRecorder recorder) {
+        List<RecordedEvent> events = new ArrayList<>();
+        recorder.forEach(events::add);
+        return events;
+    }
+}
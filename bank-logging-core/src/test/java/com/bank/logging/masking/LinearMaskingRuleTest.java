@@ -0,0 +1,106 @@
+package com.bank.logging.masking;
+
+import com.google.re2j.Pattern;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Adversarial inputs for {@link LinearMaskingRule}: catastrophic-backtracking patterns for
+ * java.util.regex, long near-match digit runs, and a search that is quadratic even for RE2J
+ * and must hit the step budget.
+ */
+class LinearMaskingRuleTest {
+
+    // Unanchored search for a PAN-like number that never gets its closing boundary
+    private static final String NEAR_MATCH_PAN = "\\b(\\d{6})\\d{3,9}(\\d{4})\\b";
+    private static final String NESTED_ALTERNATION = "((a|b)*|(ab)*)*c";
+    private static final String NESTED_QUANTIFIER = "(x+x+)+y";
+    private static final String REPEATED_WILDCARD = "(.*a){12}b";
+
+    // Each find() scans to the end looking for 'y' before settling for one 'x': O(n^2) reads
+    private static final String QUADRATIC_SEARCH = "x*y|x";
+
+    @Test
+    void adversarialInputsStayWithinTheTightestAcceptedBudget() {
+        int n = 100_000;
+        assertWithinMinimumBudget(NEAR_MATCH_PAN, "4".repeat(n) + "X");
+        assertWithinMinimumBudget(NEAR_MATCH_PAN, "4111 ".repeat(n / 5) + "4111111111111111X");
+        assertWithinMinimumBudget(NESTED_ALTERNATION, "ab".repeat(n / 2) + "!");
+        assertWithinMinimumBudget(NESTED_QUANTIFIER, "x".repeat(n) + "!");
+        assertWithinMinimumBudget(REPEATED_WILDCARD, "a".repeat(n) + "!");
+    }
+
+    @Test
+    void stillMasksNearMatchesThatDoMatch() {
+        LinearMaskingRule rule = LinearMaskingRule.compile("pan", NEAR_MATCH_PAN, "$1******$2",
+            LinearMaskingRule.DEFAULT_MAX_STEPS_PER_CHAR);
+
+        assertThat(rule.apply("4".repeat(40) + "X 4111111111111111"))
+            .isEqualTo("4".repeat(40) + "X 411111******1111");
+    }
+
+    @Test
+    void quadraticSearchIsCutOffAtTheStepBudget() {
+        LinearMaskingRule rule = LinearMaskingRule.compile("quadratic", QUADRATIC_SEARCH, "#",
+            LinearMaskingRule.DEFAULT_MAX_STEPS_PER_CHAR);
+
+        // About 1.5 * n reads per character: fine for short input, over budget past ~100 chars
+        assertThat(rule.apply("xxx")).isEqualTo("###");
+        assertThat(rule.apply("x".repeat(2_000))).isEqualTo(LinearMaskingRule.REDACTED);
+
+        StringBuilder out = new StringBuilder("prefix ");
+        assertThat(rule.apply("x".repeat(2_000), out)).isEqualTo(1);
+        assertThat(out).hasToString("prefix " + LinearMaskingRule.REDACTED);
+    }
+
+    @Test
+    void cutOffFollowsMaxStepsPerChar() {
+        String input = "x".repeat(200);
+        int programSize = Pattern.compile(QUADRATIC_SEARCH).programSize();
+
+        // 200 chars need ~304 reads per char: budgets just above and just below
+        assertThat(LinearMaskingRule.compile("q", QUADRATIC_SEARCH, "#", programSize * 320).apply(input))
+            .isEqualTo("#".repeat(200));
+        assertThat(LinearMaskingRule.compile("q", QUADRATIC_SEARCH, "#", programSize * 290).apply(input))
+            .isEqualTo(LinearMaskingRule.REDACTED);
+    }
+
+    @Test
+    void rejectsPatternsTooLargeForTheBudget() {
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> LinearMaskingRule.compile("wild", REPEATED_WILDCARD, "#", 64))
+            .withMessageContaining("too complex");
+    }
+
+    @Test
+    void readsPerCharacterDoNotGrowWithInputLength() {
+        // Deterministic: the same per-character budget holds at 8x the length, which a
+        // super-linear search would exceed
+        for (int n : new int[] {20_000, 160_000}) {
+            assertWithinMinimumBudget(NEAR_MATCH_PAN, "4".repeat(n) + "X");
+            assertWithinMinimumBudget(NESTED_ALTERNATION, "ab".repeat(n / 2) + "!");
+            assertWithinMinimumBudget(NESTED_QUANTIFIER, "x".repeat(n) + "!");
+            assertWithinMinimumBudget(REPEATED_WILDCARD, "a".repeat(n) + "!");
+        }
+    }
+
+    @Test
+    void quadraticSearchFallsBackOnceTheBudgetIsSpent() {
+        LinearMaskingRule rule = LinearMaskingRule.compile("quadratic", QUADRATIC_SEARCH, "#",
+            LinearMaskingRule.DEFAULT_MAX_STEPS_PER_CHAR);
+
+        // Budget path: the cut-off bounds the quadratic search to max-steps-per-char * n
+        assertThat(rule.apply("x".repeat(20_000))).isEqualTo(LinearMaskingRule.REDACTED);
+        assertThat(rule.apply("x".repeat(160_000))).isEqualTo(LinearMaskingRule.REDACTED);
+    }
+
+    private static void assertWithinMinimumBudget(String regex, String input) {
+        // compile() requires at least 4 reads per character worth of budget
+        int minimumBudget = Pattern.compile(regex).programSize() * 4;
+        LinearMaskingRule rule = LinearMaskingRule.compile("adversarial", regex, "#", minimumBudget);
+
+        assertThat(rule.apply(input)).as(regex).isNotEqualTo(LinearMaskingRule.REDACTED);
+    }
+}
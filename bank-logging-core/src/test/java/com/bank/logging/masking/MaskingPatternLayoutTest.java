@@ -0,0 +1,93 @@
+package com.bank.logging.masking;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MaskingPatternLayoutTest {
+
+    private static final String PAN = "4111111111111111";
+    private static final String IBAN = "FR7630006000011234567890189";
+
+    private final LoggerContext context = new LoggerContext();
+
+    @Test
+    void masksPlainConvertersMixedWithMaskingOnes() {
+        String line = layout("%mmsg | %msg | %ex").doLayout(event("card " + PAN,
+            new IllegalStateException("refused for " + IBAN)));
+
+        assertThat(line).doesNotContain(PAN).doesNotContain(IBAN)
+            .contains("card 411111******1111 | card 411111******1111 |")
+            .contains("IllegalStateException: refused for FR76************0189");
+    }
+
+    @Test
+    void masksPlainMdcAndCompositesInConverterMode() {
+        LoggingEvent event = event("paid", null, "com.bank.Test", Map.of("card", PAN, "correlation_id", "abc-123"));
+
+        String line = layout("%mmsg [%X{correlation_id}] [%X{card}] %replace(%msg){'paid','done'}").doLayout(event);
+
+        assertThat(line).isEqualTo("paid [abc-123] [411111******1111] done");
+    }
+
+    @Test
+    void masksCorrelationIdInTheDefaultConsolePattern() {
+        String pattern = "%-5level [%thread] %logger{36} [%X{correlation_id:-}] - %mmsg%n%mEx";
+        LoggingEvent generated = event("paid", null, "com.bank.Test",
+            Map.of("correlation_id", "0f8fad5b-d9cb-469f-a165-70867728950e"));
+        // Taken as is from a client header
+        LoggingEvent fromHeader = event("paid", null, "com.bank.Test", Map.of("correlation_id", PAN));
+
+        assertThat(layout(pattern).doLayout(generated)).contains("[0f8fad5b-d9cb-469f-a165-70867728950e] - paid");
+        assertThat(layout(pattern).doLayout(fromHeader)).doesNotContain(PAN).contains("[411111******1111] - paid");
+    }
+
+    @Test
+    void leavesOtherSegmentsUnmaskedInConverterMode() {
+        // The logger name matches the PAN rule but is not a data-carrying converter
+        String line = layout("%logger %mmsg").doLayout(event("card " + PAN, null, "svc." + PAN));
+
+        assertThat(line).isEqualTo("svc." + PAN + " card 411111******1111");
+    }
+
+    @Test
+    void appendsMaskedStackTraceWhenPatternHasNone() {
+        String line = layout("%mmsg%n").doLayout(event("failed", new IllegalStateException("card " + PAN)));
+
+        assertThat(line).doesNotContain(PAN).contains("card 411111******1111");
+    }
+
+    @Test
+    void masksWholeLineWithoutMaskingConverters() {
+        String line = layout("%logger %msg%n").doLayout(event("card " + PAN, null, "svc." + PAN));
+
+        assertThat(line).doesNotContain(PAN);
+    }
+
+    private MaskingPatternLayout layout(String pattern) {
+        MaskingPatternLayout layout = new MaskingPatternLayout();
+        layout.setContext(context);
+        layout.setPattern(pattern);
+        layout.start();
+        return layout;
+    }
+
+    private LoggingEvent event(String message, Throwable throwable) {
+        return event(message, throwable, "com.bank.Test");
+    }
+
+    private LoggingEvent event(String message, Throwable throwable, String loggerName) {
+        return event(message, throwable, loggerName, Map.of());
+    }
+
+    private LoggingEvent event(String message, Throwable throwable, String loggerName, Map<String, String> mdc) {
+        LoggingEvent event = new LoggingEvent("fqcn", context.getLogger(loggerName), Level.INFO, message, throwable, null);
+        event.setMDCPropertyMap(mdc);
+        return event;
+    }
+}
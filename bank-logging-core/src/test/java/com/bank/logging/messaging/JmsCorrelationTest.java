@@ -0,0 +1,92 @@
+package com.bank.logging.messaging;
+
+import jakarta.jms.Message;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.jms.core.JmsTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JmsCorrelationTest {
+
+    private static EmbeddedActiveMQ server;
+    private static ActiveMQConnectionFactory connectionFactory;
+
+    private final JmsTemplate jmsTemplate = new JmsTemplate(connectionFactory);
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        server = new EmbeddedActiveMQ().setConfiguration(new ConfigurationImpl()
+            .setPersistenceEnabled(false)
+            .setSecurityEnabled(false)
+            .addAcceptorConfiguration("in-vm", "vm://0"));
+        server.start();
+        connectionFactory = new ActiveMQConnectionFactory("vm://0");
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        connectionFactory.close();
+        server.stop();
+    }
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void postProcessorWritesContextAsMessageProperties() throws Exception {
+        jmsTemplate.setReceiveTimeout(5_000);
+        MDC.put("correlation_id", "corr-1");
+        MDC.put("trace_id", "trace-1");
+
+        jmsTemplate.convertAndSend("settlements", "payment", JmsCorrelation.postProcessor());
+        MDC.clear();
+        Message message = jmsTemplate.receive("settlements");
+
+        assertThat(message).isNotNull();
+        assertThat(message.getStringProperty("correlation_id")).isEqualTo("corr-1");
+        assertThat(message.getStringProperty("trace_id")).isEqualTo("trace-1");
+        assertThat(message.propertyExists("transaction_id")).isFalse();
+    }
+
+    @Test
+    void postProcessorKeepsPropertiesSetByTheCaller() throws Exception {
+        jmsTemplate.setReceiveTimeout(5_000);
+        MDC.put("correlation_id", "corr-1");
+
+        jmsTemplate.convertAndSend("overrides", "payment", message -> {
+            message.setStringProperty("correlation_id", "corr-caller");
+            return JmsCorrelation.postProcessor().postProcessMessage(message);
+        });
+        Message message = jmsTemplate.receive("overrides");
+
+        assertThat(message.getStringProperty("correlation_id")).isEqualTo("corr-caller");
+    }
+
+    @Test
+    void bindRestoresThePreviousContext() throws Exception {
+        jmsTemplate.setReceiveTimeout(5_000);
+        MDC.put("correlation_id", "corr-1");
+        MDC.put("transaction_id", "tx-1");
+        jmsTemplate.convertAndSend("bound", "payment", JmsCorrelation.postProcessor());
+
+        MDC.clear();
+        MDC.put("correlation_id", "consumer");
+        Message message = jmsTemplate.receive("bound");
+        try (MessagingContext.Scope ignored = JmsCorrelation.bind(message)) {
+            assertThat(MDC.get("correlation_id")).isEqualTo("corr-1");
+            assertThat(MDC.get("transaction_id")).isEqualTo("tx-1");
+        }
+
+        assertThat(MDC.get("correlation_id")).isEqualTo("consumer");
+        assertThat(MDC.get("transaction_id")).isNull();
+    }
+}
@@ -0,0 +1,196 @@
+package com.bank.logging.messaging;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KafkaCorrelationTest {
+
+    private static final String PRODUCED = "produced";
+    private static final String LISTENED = "listened";
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, PRODUCED, LISTENED);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void producerInterceptorAddsHeadersWithoutOverridingTheCaller() {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, KafkaCorrelationProducerInterceptor.class.getName());
+        DefaultKafkaProducerFactory<String, String> producerFactory =
+            new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new StringSerializer());
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory);
+
+        MDC.put("correlation_id", "corr-1");
+        MDC.put("transaction_id", "tx-1");
+        ProducerRecord<String, String> record = new ProducerRecord<>(PRODUCED, "payment");
+        record.headers().add(new RecordHeader("X-Transaction-ID", "tx-caller".getBytes(StandardCharsets.UTF_8)));
+        template.send(record).join();
+        producerFactory.destroy();
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("produced-check", "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (var consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            consumer.subscribe(List.of(PRODUCED));
+            ConsumerRecord<String, String> received = KafkaTestUtils.getSingleRecord(consumer, PRODUCED);
+
+            assertThat(header(received, "X-Correlation-ID")).isEqualTo("corr-1");
+            assertThat(header(received, "X-Transaction-ID")).isEqualTo("tx-caller");
+            assertThat(received.headers().headers("X-Transaction-ID")).hasSize(1);
+            assertThat(received.headers().lastHeader("X-Trace-ID")).isNull();
+        }
+    }
+
+    @Test
+    void recordInterceptorBindsEachRecordAndClearsAfterIt() throws Exception {
+        BlockingQueue<String> seen = new LinkedBlockingQueue<>();
+        MessageListener<String, String> listener = record -> {
+            seen.add(record.value() + "=" + MDC.get("correlation_id") + "/" + MDC.get("trace_id"));
+            if (record.value().equals("fails")) {
+                throw new IllegalStateException("listener failure");
+            }
+        };
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("listener", "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        ContainerProperties containerProperties = new ContainerProperties(LISTENED);
+        containerProperties.setMessageListener(listener);
+        KafkaMessageListenerContainer<String, String> container = new KafkaMessageListenerContainer<>(
+            new DefaultKafkaConsumerFactory<>(consumerProps, new StringDeserializer(), new StringDeserializer()),
+            containerProperties);
+        container.setRecordInterceptor(cast(new KafkaCorrelationRecordInterceptor()));
+        container.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0, 0)));
+        container.start();
+
+        DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(
+            KafkaTestUtils.producerProps(broker), new StringSerializer(), new StringSerializer());
+        try {
+            KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory);
+            template.send(withHeaders("first", "corr-A", "trace-A")).join();
+            template.send(new ProducerRecord<>(LISTENED, "bare")).join();
+            template.send(withHeaders("fails", "corr-B", null)).join();
+            template.send(new ProducerRecord<>(LISTENED, "after-failure")).join();
+
+            List<String> values = new ArrayList<>();
+            while (values.size() < 4) {
+                String value = seen.poll(30, TimeUnit.SECONDS);
+                assertThat(value).as("records received: %s", values).isNotNull();
+                values.add(value);
+            }
+            assertThat(values).containsExactly(
+                "first=corr-A/trace-A",
+                "bare=null/null",
+                "fails=corr-B/null",
+                "after-failure=null/null");
+        } finally {
+            producerFactory.destroy();
+            container.stop();
+        }
+    }
+
+    @Test
+    void forEachBindsEachRecordAndRestoresTheCallerContext() {
+        MDC.put("correlation_id", "batch-job");
+        List<ConsumerRecord<String, String>> records = List.of(
+            record("first", "corr-A", "trace-A"),
+            record("bare", null, null),
+            record("second", "corr-B", null));
+        List<String> seen = new ArrayList<>();
+
+        KafkaCorrelation.forEach(records,
+            r -> seen.add(r.value() + "=" + MDC.get("correlation_id") + "/" + MDC.get("trace_id")));
+
+        assertThat(seen).containsExactly("first=corr-A/trace-A", "bare=batch-job/null", "second=corr-B/null");
+        assertThat(MDC.get("correlation_id")).isEqualTo("batch-job");
+        assertThat(MDC.get("trace_id")).isNull();
+    }
+
+    @Test
+    void forEachRestoresTheCallerContextWhenTheActionFails() {
+        List<ConsumerRecord<String, String>> records = List.of(record("fails", "corr-A", "trace-A"));
+
+        assertThatThrownBy(() -> KafkaCorrelation.forEach(records, r -> {
+            throw new IllegalStateException("boom");
+        })).hasMessage("boom");
+
+        assertThat(MDC.get("correlation_id")).isNull();
+        assertThat(MDC.get("trace_id")).isNull();
+    }
+
+    private static ProducerRecord<String, String> withHeaders(String value, String correlationId, String traceId) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(LISTENED, value);
+        addHeaders(record.headers(), correlationId, traceId);
+        return record;
+    }
+
+    private static ConsumerRecord<String, String> record(String value, String correlationId, String traceId) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("batch", 0, 0, null, value);
+        addHeaders(record.headers(), correlationId, traceId);
+        return record;
+    }
+
+    private static void addHeaders(Headers headers, String correlationId, String traceId) {
+        if (correlationId != null) {
+            headers.add("X-Correlation-ID", correlationId.getBytes(StandardCharsets.UTF_8));
+        }
+        if (traceId != null) {
+            headers.add("X-Trace-ID", traceId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        return KafkaCorrelation.header(record.headers(), name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+}
@@ -0,0 +1,40 @@
+package com.bank.logging.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownstreamMetricsTest {
+
+    @Test
+    void groupsHostsBeyondTheLimitUnderOther() {
+        DownstreamMetrics metrics = new DownstreamMetrics();
+        metrics.setMaxHosts(2);
+
+        for (int i = 0; i < 10; i++) {
+            metrics.record("tenant-" + i + ".bank.example", "/accounts", "GET", 200, 1_000_000, 0, 0, null);
+        }
+        metrics.record("tenant-0.bank.example", "/accounts", "GET", 200, 1_000_000, 0, 0, null);
+
+        List<DownstreamMetrics.RouteSnapshot> snapshot = metrics.snapshot();
+        assertThat(snapshot).extracting(DownstreamMetrics.RouteSnapshot::host)
+            .containsExactly(DownstreamMetrics.OTHER_HOST, "tenant-0.bank.example", "tenant-1.bank.example");
+        assertThat(snapshot).extracting(DownstreamMetrics.RouteSnapshot::count).containsExactly(8L, 2L, 1L);
+    }
+
+    @Test
+    void countsCancelledCallsApartFromErrors() {
+        DownstreamMetrics metrics = new DownstreamMetrics();
+
+        metrics.record("fraud", "/score", "POST", DownstreamCallStats.CANCELLED, 5_000_000, 10, 0, null);
+        metrics.record("fraud", "/score", "POST", -1, 5_000_000, 10, 0, null);
+        metrics.record("fraud", "/score", "POST", 200, 5_000_000, 10, 20, null);
+
+        DownstreamMetrics.RouteSnapshot route = metrics.snapshot().get(0);
+        assertThat(route.count()).isEqualTo(3);
+        assertThat(route.cancelled()).isEqualTo(1);
+        assertThat(route.errors()).isEqualTo(1);
+    }
+}
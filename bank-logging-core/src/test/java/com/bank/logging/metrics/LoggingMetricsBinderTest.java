@@ -0,0 +1,98 @@
+package com.bank.logging.metrics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingMetricsBinderTest {
+
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    private final Logger logger = context.getLogger("com.bank.payments.Transfers");
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LoggingMetricsBinder binder = new LoggingMetricsBinder();
+
+    @BeforeEach
+    void setUp() {
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        binder.close();
+        logger.setLevel(null);
+        logger.setAdditive(true);
+    }
+
+    @Test
+    void turboFilterCountsEnabledEventsPerLevel() {
+        binder.bindTo(registry);
+
+        logger.info("accepted");
+        logger.info("accepted");
+        logger.warn("retried");
+        logger.debug("not enabled");
+
+        assertThat(events("info")).isEqualTo(2);
+        assertThat(events("warn")).isEqualTo(1);
+        assertThat(events("debug")).isZero();
+        assertThat(registry.find("bank.logging.mdc.setup").meter()).isNotNull();
+    }
+
+    @Test
+    void groupsLoggersBeyondTheLimitUnderOther() {
+        binder.setMaxLoggers(2);
+        binder.bindTo(registry);
+        LoggingMetrics metrics = LoggingMetrics.current();
+
+        for (int i = 0; i < 10; i++) {
+            metrics.event("com.bank.generated.Proxy" + i, 2);
+        }
+        metrics.event("com.bank.generated.Proxy0", 2);
+
+        assertThat(registry.find("bank.logging.events").tag("level", "info").meters())
+            .extracting(meter -> meter.getId().getTag("logger"))
+            .containsExactlyInAnyOrder("com.bank.generated.Proxy0", "com.bank.generated.Proxy1",
+                LoggingMetrics.OTHER_LOGGER);
+        assertThat(registry.get("bank.logging.events").tags("level", "info", "logger", LoggingMetrics.OTHER_LOGGER)
+            .functionCounter().count()).isEqualTo(8);
+    }
+
+    @Test
+    void closingDisablesMetricsAndRemovesTheTurboFilter() {
+        binder.bindTo(registry);
+        assertThat(LoggingMetrics.current()).isNotNull();
+        assertThat(context.getTurboFilterList()).anyMatch(MetricsTurboFilter.class::isInstance);
+
+        binder.close();
+
+        assertThat(LoggingMetrics.current()).isNull();
+        assertThat(context.getTurboFilterList()).noneMatch(MetricsTurboFilter.class::isInstance);
+    }
+
+    @Test
+    void secondRegistryReceivesExistingMeters() {
+        binder.bindTo(registry);
+        logger.info("accepted");
+
+        SimpleMeterRegistry second = new SimpleMeterRegistry();
+        binder.bindTo(second);
+
+        assertThat(second.get("bank.logging.events").tags("level", "info", "logger", logger.getName())
+            .functionCounter().count()).isEqualTo(1);
+    }
+
+    private double events(String level) {
+        FunctionCounter counter = registry.find("bank.logging.events")
+            .tags("level", level, "logger", logger.getName()).functionCounter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.bank.logging.propagation;
+
+import com.bank.logging.metrics.DownstreamMetrics;
+import feign.Client;
+import feign.Request;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeignCorrelationInterceptorTest {
+
+    private final DownstreamMetrics metrics = new DownstreamMetrics();
+
+    @Test
+    void keepsTheCallFailureWhenTheUrlCannotBeParsed() {
+        IOException failure = new IOException("connection refused");
+        Client failing = (request, options) -> {
+            throw failure;
+        };
+        Client client = new FeignCorrelationInterceptor(metrics).enrich(failing);
+        Request request = Request.create(Request.HttpMethod.GET, "http://fraud.bank.example/scores/{bad id}",
+            Map.of(), null, StandardCharsets.UTF_8, null);
+
+        assertThatThrownBy(() -> client.execute(request, new Request.Options())).isSameAs(failure);
+
+        DownstreamMetrics.RouteSnapshot route = metrics.snapshot().get(0);
+        assertThat(route.host()).isEqualTo("unknown");
+        assertThat(route.errors()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,65 @@
+package com.bank.logging.propagation;
+
+import com.bank.logging.metrics.DownstreamMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestTemplateCorrelationInterceptorTest {
+
+    private static final byte[] CHUNK = "x".repeat(1_000).getBytes(StandardCharsets.US_ASCII);
+
+    private final DownstreamMetrics metrics = new DownstreamMetrics();
+    private final RestTemplate restTemplate = new RestTemplate();
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/statements", this::slowChunkedBody);
+        server.start();
+        restTemplate.getInterceptors().add(new RestTemplateCorrelationInterceptor(metrics));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void timesAndCountsTheBodyOfAChunkedResponse() {
+        String body = restTemplate.getForObject("http://localhost:" + server.getAddress().getPort()
+            + "/statements/42", String.class);
+
+        assertThat(body).hasSize(2 * CHUNK.length);
+        DownstreamMetrics.RouteSnapshot route = metrics.snapshot().get(0);
+        assertThat(route.route()).isEqualTo("/statements/{id}");
+        assertThat(route.count()).isEqualTo(1);
+        assertThat(route.bytesReceived()).isEqualTo(2L * CHUNK.length);
+        // Headers are sent right away, the second chunk 200ms later
+        assertThat(route.maxMs()).isGreaterThanOrEqualTo(190);
+    }
+
+    private void slowChunkedBody(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(CHUNK);
+            out.flush();
+            Thread.sleep(200);
+            out.write(CHUNK);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bank.logging.propagation;
+
+import com.bank.logging.metrics.DownstreamMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebClientCorrelationFilterTest {
+
+    private final DownstreamMetrics metrics = new DownstreamMetrics();
+    private final WebClientCorrelationFilter filter = new WebClientCorrelationFilter(metrics);
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET,
+        URI.create("http://fraud.bank.example/scores/42")).build();
+
+    @Test
+    void recordsCallsCancelledByATimeout() {
+        Mono<ClientResponse> call = filter.filter(request, r -> Mono.never());
+
+        assertThatThrownBy(() -> call.timeout(Duration.ofMillis(20)).block()).hasMessageContaining("20ms");
+
+        DownstreamMetrics.RouteSnapshot route = metrics.snapshot().get(0);
+        assertThat(route.host()).isEqualTo("fraud.bank.example");
+        assertThat(route.route()).isEqualTo("/scores/{id}");
+        assertThat(route.cancelled()).isEqualTo(1);
+        assertThat(route.errors()).isZero();
+    }
+
+    @Test
+    void recordsCallsDisposedBySubscriber() {
+        filter.filter(request, r -> Mono.never()).subscribe().dispose();
+
+        assertThat(metrics.snapshot().get(0).cancelled()).isEqualTo(1);
+    }
+
+    @Test
+    void recordsResponses() {
+        filter.filter(request, r -> Mono.just(ClientResponse.create(HttpStatus.OK).build())).block();
+
+        DownstreamMetrics.RouteSnapshot route = metrics.snapshot().get(0);
+        assertThat(route.responses()).containsEntry("2xx", 1L);
+        assertThat(route.cancelled()).isZero();
+    }
+}
@@ -0,0 +1,134 @@
+package com.bank.logging.rescrub;
+
+import com.bank.logging.masking.DataMasker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class LogRescrubberTest {
+
+    private static final String PAN = "4111111111111111";
+    private static final String MASKED_PAN = "411111******1111";
+
+    @TempDir
+    Path dir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void masksAcrossManySmallChunksInOrder() throws IOException {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            String line = i % 3 == 0 ? "line " + i + " card " + PAN : "line " + i + " nothing to mask";
+            input.append(line).append('\n');
+            expected.append(line.replace(PAN, MASKED_PAN)).append('\n');
+        }
+        Path in = write("app.log", input.toString().getBytes(StandardCharsets.UTF_8));
+        Path out = dir.resolve("app.masked.log");
+
+        RescrubReport report = new LogRescrubber(new DataMasker(), executor, 4, 1024).rescrub(in, out);
+
+        assertThat(Files.readString(out)).isEqualTo(expected.toString());
+        assertThat(report.lines()).isEqualTo(2_000);
+        assertThat(report.linesChanged()).isEqualTo(667);
+        assertThat(report.linesNotUtf8()).isZero();
+    }
+
+    @Test
+    void copiesLinesThatAreNotUtf8Unchanged() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.writeBytes(("café card " + PAN + "\n").getBytes(StandardCharsets.UTF_8));
+        // ISO-8859-1 "é" and a truncated multi-byte sequence
+        byte[] latin1 = ("café ref " + PAN + "\n").getBytes(StandardCharsets.ISO_8859_1);
+        bytes.writeBytes(latin1);
+        byte[] truncated = {'x', (byte) 0xE2, (byte) 0x82, '\n'};
+        bytes.writeBytes(truncated);
+        bytes.writeBytes(("last " + PAN).getBytes(StandardCharsets.UTF_8));
+        Path in = write("mixed.log", bytes.toByteArray());
+        Path out = dir.resolve("mixed.masked.log");
+
+        RescrubReport report = new LogRescrubber(new DataMasker(), executor, 4, 16).rescrub(in, out);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.writeBytes(("café card " + MASKED_PAN + "\n").getBytes(StandardCharsets.UTF_8));
+        expected.writeBytes(latin1);
+        expected.writeBytes(truncated);
+        expected.writeBytes(("last " + MASKED_PAN).getBytes(StandardCharsets.UTF_8));
+        assertThat(Files.readAllBytes(out)).isEqualTo(expected.toByteArray());
+        assertThat(report.lines()).isEqualTo(4);
+        assertThat(report.linesChanged()).isEqualTo(2);
+        assertThat(report.linesNotUtf8()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsChunkSizesThatCannotBeMapped() {
+        assertThat(LogRescrubber.parseChunkSizeMb("1024")).isEqualTo(LogRescrubber.MAX_CHUNK_SIZE);
+        assertThatIllegalArgumentException().isThrownBy(() -> LogRescrubber.parseChunkSizeMb("2048"));
+        assertThatIllegalArgumentException().isThrownBy(() -> LogRescrubber.parseChunkSizeMb("0"));
+        assertThatIllegalArgumentException().isThrownBy(() -> LogRescrubber.parseChunkSizeMb("8589934592"));
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> new LogRescrubber(new DataMasker(), executor, 4, LogRescrubber.MAX_CHUNK_SIZE + 1));
+    }
+
+    @Test
+    void removesThePartialOutputWhenMaskingFails() throws IOException {
+        DataMasker failing = new DataMasker(List.of(new DataMasker.Rule() {
+            @Override
+            public String name() {
+                return "failing";
+            }
+
+            @Override
+            public String apply(String input) {
+                throw new IllegalStateException("rule failed");
+            }
+
+            @Override
+            public int apply(String input, StringBuilder out) {
+                throw new IllegalStateException("rule failed");
+            }
+        }));
+        Path in = write("app.log", "line 1\nline 2\n".repeat(1_000).getBytes(StandardCharsets.UTF_8));
+        Path out = dir.resolve("app.masked.log");
+
+        assertThatIllegalStateException()
+            .isThrownBy(() -> new LogRescrubber(failing, executor, 4, 1024).rescrub(in, out))
+            .withMessage("rule failed");
+
+        assertThat(out).doesNotExist();
+        assertThat(dir.resolve("app.masked.log.part")).doesNotExist();
+    }
+
+    @Test
+    void rejectsThreadCountsBelowOne() {
+        assertThat(LogRescrubber.parseThreads("8")).isEqualTo(8);
+        assertThatIllegalArgumentException().isThrownBy(() -> LogRescrubber.parseThreads("0"));
+        assertThatIllegalArgumentException().isThrownBy(() -> LogRescrubber.parseThreads("-2"));
+        assertThatIllegalArgumentException().isThrownBy(() -> LogRescrubber.parseThreads("many"));
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, content);
+        return file;
+    }
+}
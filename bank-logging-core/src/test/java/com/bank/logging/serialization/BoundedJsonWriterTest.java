@@ -0,0 +1,84 @@
+package com.bank.logging.serialization;
+
+import com.bank.logging.masking.DataMasker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedJsonWriterTest {
+
+    private final DataMasker dataMasker = new DataMasker();
+    private final BoundedJsonWriter writer = new BoundedJsonWriter(new ObjectMapper(), dataMasker::mask);
+
+    record Transfer(String debtor, String creditor, String reference, long amount) {
+    }
+
+    record Holder(Object items) {
+    }
+
+    @Test
+    void masksPanBeforeCuttingString() throws Exception {
+        // Cut inside the PAN: 12 digits left, below the 14 the rule needs
+        String json = writer.write("PAN 4111111111111111 end of a long description",
+            new PayloadLimits(0, 0, 0, 16));
+
+        assertThat(dataMasker.mask(json)).doesNotContain("411111111111");
+        assertThat(json).contains("411111").contains("[truncated:");
+    }
+
+    @Test
+    void masksIbanBeforeCuttingString() throws Exception {
+        String json = writer.write(List.of("IBAN FR7630006000011234567890189 for rent"),
+            new PayloadLimits(0, 0, 0, 20));
+
+        assertThat(dataMasker.mask(json)).doesNotContain("3000600001");
+        assertThat(json).contains("FR76").contains("[truncated:");
+    }
+
+    @Test
+    void beanPropertiesDoNotCountAsCollectionElements() throws Exception {
+        String json = writer.write(new Transfer("alice", "bob", "REF-1", 42), new PayloadLimits(0, 0, 3, 0));
+
+        assertThat(json).isEqualTo("{\"debtor\":\"alice\",\"creditor\":\"bob\",\"reference\":\"REF-1\",\"amount\":42}");
+    }
+
+    @Test
+    void mapEntriesAndListElementsAreLimited() throws Exception {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        IntStream.range(0, 5).forEach(i -> map.put("k" + i, i));
+
+        String json = writer.write(Map.of("map", map, "list", List.of(1, 2, 3, 4, 5)), new PayloadLimits(0, 0, 3, 0));
+
+        assertThat(json).contains("\"k2\":2,\"_truncated\":\"2 more entries\"").doesNotContain("k3");
+        assertThat(json).contains("[1,2,3,\"[truncated: 2 more elements]\"]");
+    }
+
+    @Test
+    void limitsApplyToPolymorphicValues() throws Exception {
+        ObjectMapper typed = new ObjectMapper().activateDefaultTyping(
+            BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
+            ObjectMapper.DefaultTyping.NON_FINAL);
+        BoundedJsonWriter typedWriter = new BoundedJsonWriter(typed, dataMasker::mask);
+        List<String> items = new ArrayList<>(IntStream.range(0, 10).mapToObj(i -> "item" + i).toList());
+        Map<String, Object> map = new LinkedHashMap<>();
+        IntStream.range(0, 10).forEach(i -> map.put("k" + i, "v" + i));
+
+        String list = typedWriter.write(new Holder(items), new PayloadLimits(0, 0, 3, 0));
+        String root = typedWriter.write(map, new PayloadLimits(0, 0, 3, 0));
+
+        assertThat(list).contains("java.util.ArrayList").contains("item2")
+            .contains("[truncated: 7 more elements]").doesNotContain("item3");
+        assertThat(root).contains("java.util.LinkedHashMap").contains("\"_truncated\":\"7 more entries\"")
+            .doesNotContain("k3");
+        assertThat(typed.readTree(list)).isNotNull();
+        assertThat(typed.readTree(root)).isNotNull();
+    }
+}
@@ -0,0 +1,255 @@
+package com.bank.logging.shipping;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.status.Status;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkHttpAppenderTest {
+
+    @TempDir
+    Path spool;
+
+    private final LoggerContext context = new LoggerContext();
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<BulkHttpAppender> appenders = new ArrayList<>();
+    private final List<String> actions = new CopyOnWriteArrayList<>();
+    private final Map<String, String> indexed = new ConcurrentHashMap<>();
+    private final Set<String> pushedBack = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/bulk", this::handle);
+        server.createContext("/_bulk", this::handleElasticsearch);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        appenders.forEach(BulkHttpAppender::stop);
+        server.stop(0);
+    }
+
+    @Test
+    void replaysInOrderAfterAnOutage() {
+        status.set(503);
+        BulkHttpAppender appender = start();
+        log(appender, 1, 10);
+        await(() -> appender.getSpooledBatches() >= 3 && requests.get() >= 2);
+
+        status.set(200);
+        log(appender, 11, 12);
+        await(() -> appender.getSentEvents() == 12);
+
+        assertThat(received).containsExactlyElementsOf(events(1, 12));
+        assertThat(appender.getSpooledBatches()).isZero();
+        assertThat(appender.getDroppedEvents()).isZero();
+    }
+
+    @Test
+    void replaysWhatWasSpooledBeforeARestart() {
+        status.set(503);
+        BulkHttpAppender before = start();
+        log(before, 1, 6);
+        await(() -> before.getSpooledBatches() == 3);
+        before.stop();
+
+        status.set(200);
+        BulkHttpAppender after = start();
+        log(after, 7, 8);
+        await(() -> after.getSentEvents() == 8);
+
+        assertThat(received).containsExactlyElementsOf(events(1, 8));
+    }
+
+    @Test
+    void dropsBatchesRejectedWithAClientError() {
+        status.set(400);
+        BulkHttpAppender appender = start();
+        log(appender, 1, 3);
+        await(() -> appender.getDroppedEvents() == 3);
+
+        assertThat(appender.getSentEvents()).isZero();
+        assertThat(appender.getSpooledBatches()).isZero();
+    }
+
+    @Test
+    void setsAsideASpoolEntryThatCannotBeRead() throws IOException {
+        status.set(503);
+        BulkHttpAppender before = start();
+        log(before, 1, 6);
+        await(() -> before.getSpooledBatches() == 3);
+        before.stop();
+        // Oldest batch replaced by a directory of the same name: reading it always fails
+        Path oldest;
+        try (Stream<Path> files = Files.list(spool)) {
+            oldest = files.sorted().findFirst().orElseThrow();
+        }
+        Files.delete(oldest);
+        Files.createDirectory(oldest);
+
+        status.set(200);
+        BulkHttpAppender after = start();
+        await(() -> after.getSentEvents() == 4);
+
+        assertThat(received).containsExactlyElementsOf(events(3, 6));
+        assertThat(after.getDroppedEvents()).isEqualTo(2);
+        assertThat(oldest.resolveSibling(oldest.getFileName() + ".corrupt")).isDirectory();
+        assertThat(context.getStatusManager().getCopyOfStatusList())
+            .filteredOn(s -> s.getLevel() == Status.ERROR).hasSize(1);
+    }
+
+    @Test
+    void spoolsAgainTheDocumentsElasticsearchPushedBack() {
+        BulkHttpAppender appender = start(BulkFormat.ELASTICSEARCH, "/_bulk");
+        log(appender, 1, 4);
+        await(() -> appender.getSentEvents() == 3);
+
+        assertThat(indexed.values()).containsExactlyInAnyOrderElementsOf(List.of("event 1", "event 3", "event 4"));
+        assertThat(appender.getDroppedEvents()).isEqualTo(1);
+        assertThat(appender.getSpooledBatches()).isZero();
+        assertThat(actions).hasSize(5)
+            .allMatch(action -> action.matches("\\{\"index\":\\{\"_index\":\"logs\",\"_id\":\"[^\"]+\"}}"));
+        // Event 3 was pushed back once, then sent again under the same _id
+        String retried = pushedBack.iterator().next();
+        assertThat(actions).filteredOn(action -> action.contains("\"" + retried + "\"")).hasSize(2);
+        assertThat(indexed).containsEntry(retried, "event 3");
+        assertThat(context.getStatusManager().getCopyOfStatusList())
+            .filteredOn(s -> s.getLevel() == Status.ERROR).singleElement()
+            .extracting(Status::getMessage).asString().contains("1 documents rejected");
+    }
+
+    private BulkHttpAppender start() {
+        return start(BulkFormat.NDJSON, "/bulk");
+    }
+
+    private BulkHttpAppender start(BulkFormat format, String path) {
+        PatternLayout layout = new PatternLayout();
+        layout.setContext(context);
+        layout.setPattern("%msg");
+        layout.start();
+        BulkHttpAppender appender = new BulkHttpAppender();
+        appender.setContext(context);
+        appender.setName("bulk");
+        appender.setLayout(layout);
+        appender.setUrl("http://localhost:" + server.getAddress().getPort() + path);
+        appender.setFormat(format);
+        appender.setSpoolDirectory(spool.toString());
+        appender.setBatchSize(2);
+        appender.setLingerMs(20);
+        appender.setMaxRetryBackoffMs(50);
+        appender.start();
+        appenders.add(appender);
+        return appender;
+    }
+
+    private void log(BulkHttpAppender appender, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            appender.doAppend(new LoggingEvent(getClass().getName(), context.getLogger("test"), Level.INFO,
+                "event " + i, null, null));
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        byte[] body;
+        try (InputStream in = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+            ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        int code = status.get();
+        if (code / 100 == 2) {
+            received.addAll(Arrays.asList(new String(body, StandardCharsets.UTF_8).split("\n")));
+        }
+        exchange.sendResponseHeaders(code, -1);
+        exchange.close();
+    }
+
+    /**
+     * Minimal {@code _bulk} endpoint, for gzipped requests: "event 2" is rejected for its content and "event 3" is
+     * pushed back with a 429 the first time it is seen.
+     */
+    private void handleElasticsearch(HttpExchange exchange) throws IOException {
+        String[] lines;
+        try (InputStream in = new GZIPInputStream(exchange.getRequestBody())) {
+            lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+        }
+        StringBuilder items = new StringBuilder();
+        boolean errors = false;
+        for (int i = 0; i + 1 < lines.length; i += 2) {
+            actions.add(lines[i]);
+            String id = lines[i].replaceAll(".*\"_id\":\"([^\"]+)\".*", "$1");
+            String document = lines[i + 1];
+            int itemStatus = 201;
+            if (document.equals("event 2")) {
+                itemStatus = 400;
+            } else if (document.equals("event 3") && pushedBack.add(id)) {
+                itemStatus = 429;
+            } else {
+                indexed.put(id, document);
+            }
+            errors |= itemStatus != 201;
+            items.append(items.isEmpty() ? "" : ",")
+                .append("{\"index\":{\"_id\":\"").append(id).append("\",\"status\":").append(itemStatus).append("}}");
+        }
+        byte[] response = ("{\"took\":1,\"errors\":" + errors + ",\"items\":[" + items + "]}")
+            .getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static List<String> events(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(i -> "event " + i).toList();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 10s");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
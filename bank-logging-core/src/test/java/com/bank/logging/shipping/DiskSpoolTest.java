@@ -0,0 +1,48 @@
+package com.bank.logging.shipping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiskSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void corruptFilesCountAgainstTheSizeLimitAndGoFirst() throws IOException {
+        DiskSpool spool = new DiskSpool(directory, 30);
+        spool.append(new byte[10], 1, false);
+        spool.append(new byte[10], 1, false);
+        spool.quarantine(spool.peek());
+
+        // Over the limit: the corrupt file is deleted, the queued batch kept
+        assertThat(spool.append(new byte[15], 1, false)).isZero();
+
+        assertThat(spool.batches()).isEqualTo(2);
+        assertThat(files()).noneMatch(name -> name.endsWith(".corrupt"));
+    }
+
+    @Test
+    void corruptFilesLeftByAPreviousRunAreAccountedFor() throws IOException {
+        Files.write(directory.resolve("0000000000000007-1.ndjson.corrupt"), new byte[20]);
+        DiskSpool spool = new DiskSpool(directory, 30);
+        assertThat(spool.isEmpty()).isTrue();
+
+        spool.append(new byte[15], 1, false);
+
+        assertThat(files()).containsExactly("0000000000000000-1.ndjson");
+    }
+
+    private Stream<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList().stream();
+        }
+    }
+}
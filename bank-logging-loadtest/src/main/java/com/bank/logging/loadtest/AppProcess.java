@@ -0,0 +1,122 @@
+package com.bank.logging.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sample application running in its own JVM, so that JIT state, logging configuration and
+ * allocation counters are not shared between scenarios or with the load generator.
+ */
+public class AppProcess implements AutoCloseable {
+
+    public static final String MAIN_CLASS = "com.bank.logging.loadtest.app.PaymentApplication";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Process process;
+    private final List<String> command;
+    private final HttpClient client;
+    private final String baseUrl;
+
+    private AppProcess(Process process, List<String> command, HttpClient client, int port) {
+        this.process = process;
+        this.command = command;
+        this.client = client;
+        this.baseUrl = "http://127.0.0.1:" + port;
+    }
+
+    public static AppProcess start(Scenario scenario, List<String> jvmArgs, String downstreamUrl,
+                                   Path outputDir, HttpClient client, Duration timeout) throws IOException {
+        Path portFile = outputDir.resolve(scenario.id() + ".port");
+        Files.deleteIfExists(portFile);
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MAIN_CLASS);
+        command.add("--server.port=0");
+        command.add("--loadtest.port-file=" + portFile.toAbsolutePath());
+        command.add("--loadtest.downstream-url=" + downstreamUrl);
+        command.addAll(scenario.applicationArguments());
+
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(outputDir.resolve(scenario.id() + ".log").toFile())
+            .start();
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!Files.exists(portFile)) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue()
+                    + ", see " + outputDir.resolve(scenario.id() + ".log"));
+            }
+            if (System.nanoTime() > deadline) {
+                process.destroyForcibly();
+                throw new IllegalStateException("Application not ready after " + timeout);
+            }
+            sleep(50);
+        }
+        int port = Integer.parseInt(Files.readString(portFile).trim());
+        return new AppProcess(process, List.copyOf(command), client, port);
+    }
+
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    public List<String> command() {
+        return command;
+    }
+
+    public JvmStats stats() throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/internal/loadtest/stats")).build();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            return MAPPER.readValue(response.body(), JvmStats.class);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading application stats", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the application", e);
+        }
+    }
+
+    /**
+     * Cumulative JVM counters of the application process.
+     */
+    public record JvmStats(long allocatedBytes, long gcCount, long gcTimeMs, long startupMs) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.bank.logging.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends payment requests to the sample application and records latencies in microseconds.
+ * <p>
+ * Closed loop: a fixed number of clients, each sending its next request when the previous one
+ * completes. Open loop: requests sent at a fixed rate regardless of completions, with latency
+ * measured from the intended send time so that server stalls are not hidden (coordinated
+ * omission).
+ */
+public class LoadGenerator {
+
+    private static final int PAYLOAD_COUNT = 1024;
+    private static final long MAX_LATENCY_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final HttpClient client;
+    private final URI paymentsUri;
+    private final List<String> payloads;
+    private final int maxInFlight;
+
+    public LoadGenerator(HttpClient client, String baseUrl, long seed, int maxInFlight) {
+        this.client = client;
+        this.paymentsUri = URI.create(baseUrl + "/api/payments");
+        this.payloads = payloads(seed);
+        this.maxInFlight = maxInFlight;
+    }
+
+    public Result closedLoop(int concurrency, Duration duration) throws InterruptedException {
+        Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+        AtomicLong requests = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            int offset = i;
+            workers.add(Thread.ofPlatform().name("loadgen-" + i).start(() -> {
+                int index = offset;
+                while (System.nanoTime() < end) {
+                    long sent = System.nanoTime();
+                    boolean ok = sendSync(payloads.get(index++ % PAYLOAD_COUNT));
+                    recorder.recordValue(Math.min((System.nanoTime() - sent) / 1_000, MAX_LATENCY_MICROS));
+                    requests.incrementAndGet();
+                    if (!ok) {
+                        errors.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new Result(recorder.getIntervalHistogram(), requests.get(), errors.get(), System.nanoTime() - start);
+    }
+
+    public Result openLoop(int ratePerSecond, Duration duration) throws InterruptedException {
+        Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+        AtomicLong requests = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicInteger inFlight = new AtomicInteger();
+        long intervalNanos = 1_000_000_000L / ratePerSecond;
+        long total = duration.toNanos() / intervalNanos;
+        long start = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            requests.incrementAndGet();
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                // Saturated: count as an error instead of queueing without bound
+                inFlight.decrementAndGet();
+                errors.incrementAndGet();
+                continue;
+            }
+            client.sendAsync(request(payloads.get((int) (i % PAYLOAD_COUNT))), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    recorder.recordValue(Math.min((System.nanoTime() - intended) / 1_000, MAX_LATENCY_MICROS));
+                    if (failure != null || response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    }
+                    inFlight.decrementAndGet();
+                });
+        }
+        while (inFlight.get() > 0) {
+            Thread.sleep(1);
+        }
+        return new Result(recorder.getIntervalHistogram(), requests.get(), errors.get(), System.nanoTime() - start);
+    }
+
+    private boolean sendSync(String payload) {
+        try {
+            return client.send(request(payload), HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest request(String payload) {
+        return HttpRequest.newBuilder(paymentsUri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(payload))
+            .build();
+    }
+
+    // Deterministic payloads carrying values the masking rules act on (IBAN, e-mail)
+    static List<String> payloads(long seed) {
+        Random random = new Random(seed);
+        List<String> payloads = new ArrayList<>(PAYLOAD_COUNT);
+        for (int i = 0; i < PAYLOAD_COUNT; i++) {
+            payloads.add(String.format(Locale.ROOT,
+                "{\"reference\":\"PAY-%08d\",\"debtorIban\":\"FR76%023d\",\"creditorIban\":\"DE89%018d\","
+                    + "\"amount\":%d.%02d,\"currency\":\"EUR\",\"debtorEmail\":\"client%d@example.com\"}",
+                i, random.nextLong(1_000_000_000_000_000_000L), random.nextLong(1_000_000_000_000_000_000L),
+                1 + random.nextInt(50_000), random.nextInt(100), random.nextInt(1_000_000)));
+        }
+        return payloads;
+    }
+
+    /**
+     * Latencies in microseconds over one measurement window.
+     */
+    public record Result(Histogram histogram, long requests, long errors, long elapsedNanos) {
+
+        public double throughput() {
+            return (requests - errors) * 1e9 / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.bank.logging.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Markdown report of a load-test run, with the parameters needed to reproduce it, plus one
+ * HdrHistogram percentile distribution file ({@code .hgrm}, milliseconds) per measurement.
+ */
+public class LoadTestReport {
+
+    private final Map<String, String> parameters;
+    private final List<String> appCommand;
+    private final List<ScenarioResult> results;
+
+    public LoadTestReport(Map<String, String> parameters, List<String> appCommand, List<ScenarioResult> results) {
+        this.parameters = parameters;
+        this.appCommand = appCommand;
+        this.results = results;
+    }
+
+    public Path write(Path outputDir) throws IOException {
+        for (ScenarioResult result : results) {
+            Path file = outputDir.resolve(result.scenario().id() + "-" + result.mode() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+                result.result().histogram().outputPercentileDistribution(out, 1_000.0);
+            }
+        }
+        Path report = outputDir.resolve("loadtest-report.md");
+        Files.writeString(report, render());
+        return report;
+    }
+
+    public String render() {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        out.println("# Load test report");
+        out.println();
+        out.printf("- Date: %s%n", Instant.now());
+        out.printf("- JVM: %s %s (%s)%n", System.getProperty("java.vm.name"),
+            System.getProperty("java.vm.version"), System.getProperty("java.vendor"));
+        out.printf("- OS: %s %s, %d CPUs%n", System.getProperty("os.name"), System.getProperty("os.version"),
+            Runtime.getRuntime().availableProcessors());
+        parameters.forEach((name, value) -> out.printf("- %s: %s%n", name, value));
+        out.printf("- Application command: `%s`%n", String.join(" ", appCommand));
+        out.println();
+        out.println("Latencies in ms, allocation measured in the application JVM over the measurement window.");
+        out.println();
+        out.println("| Scenario | Mode | Load | Requests | Errors | Throughput (req/s) | p50 | p99 | p99.9 | Max "
+            + "| Alloc/request (KB) | Alloc rate (MB/s) | GC count | GC time (ms) | Startup (ms) |");
+        out.println("|---|---|---|---:|---:|---:|---:|---:|---:|---:|---:|---:|---:|---:|---:|");
+        for (ScenarioResult r : results) {
+            out.println(String.format(Locale.ROOT,
+                "| %s | %s | %s | %d | %d | %.0f | %.2f | %.2f | %.2f | %.2f | %.1f | %.1f | %d | %d | %d |",
+                r.scenario().id(), r.mode(), r.load(), r.result().requests(), r.result().errors(),
+                r.result().throughput(), r.percentileMs(50), r.percentileMs(99), r.percentileMs(99.9), r.maxMs(),
+                r.allocatedKbPerRequest(), r.allocationRateMbPerSecond(), r.gcCount(), r.gcTimeMs(),
+                r.before().startupMs()));
+        }
+        renderOverhead(out);
+        out.flush();
+        return buffer.toString();
+    }
+
+    // Differences against the "off" scenario of the same mode
+    private void renderOverhead(PrintWriter out) {
+        boolean header = false;
+        for (ScenarioResult r : results) {
+            ScenarioResult baseline = baseline(r.mode());
+            if (baseline == null || r == baseline) {
+                continue;
+            }
+            if (!header) {
+                out.println();
+                out.println("## Overhead vs off");
+                out.println();
+                out.println("| Scenario | Mode | Throughput | p50 (ms) | p99 (ms) | p99.9 (ms) | Alloc/request (KB) |");
+                out.println("|---|---|---:|---:|---:|---:|---:|");
+                header = true;
+            }
+            out.println(String.format(Locale.ROOT, "| %s | %s | %+.1f%% | %+.2f | %+.2f | %+.2f | %+.1f |",
+                r.scenario().id(), r.mode(),
+                (r.result().throughput() / baseline.result().throughput() - 1) * 100,
+                r.percentileMs(50) - baseline.percentileMs(50),
+                r.percentileMs(99) - baseline.percentileMs(99),
+                r.percentileMs(99.9) - baseline.percentileMs(99.9),
+                r.allocatedKbPerRequest() - baseline.allocatedKbPerRequest()));
+        }
+    }
+
+    private ScenarioResult baseline(String mode) {
+        for (ScenarioResult r : results) {
+            if (r.scenario() == Scenario.OFF && r.mode().equals(mode)) {
+                return r;
+            }
+        }
+        return null;
+    }
+}
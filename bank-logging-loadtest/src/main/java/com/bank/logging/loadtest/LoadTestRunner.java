@@ -0,0 +1,129 @@
+package com.bank.logging.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs the sample payment application once per scenario (starter off, defaults, JSON output)
+ * in a forked JVM and drives it with closed- and/or open-loop load.
+ * <p>
+ * Command line usage:
+ * <pre>
+ * java -jar bank-logging-loadtest-1.0.0.jar [--scenarios off,defaults,json] [--modes closed,open]
+ *      [--concurrency 32] [--rate 2000] [--warmup-s 15] [--duration-s 30]
+ *      [--downstream-latency-ms 2] [--seed 42] [--jvm-args "-Xms512m -Xmx512m"] [--output-dir DIR]
+ * </pre>
+ */
+public class LoadTestRunner {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+    private static final int MAX_IN_FLIGHT = 10_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<Scenario> scenarios = List.of(Scenario.values());
+        List<String> modes = List.of("closed", "open");
+        int concurrency = 32;
+        int rate = 2_000;
+        int warmupSeconds = 15;
+        int durationSeconds = 30;
+        long downstreamLatencyMs = 2;
+        long seed = 42;
+        String jvmArgs = "-Xms512m -Xmx512m";
+        Path outputDir = Path.of("target", "loadtest");
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scenarios" -> scenarios = Arrays.stream(requireValue(args, ++i).split(","))
+                    .map(Scenario::fromId).toList();
+                case "--modes" -> modes = List.of(requireValue(args, ++i).split(","));
+                case "--concurrency" -> concurrency = Integer.parseInt(requireValue(args, ++i));
+                case "--rate" -> rate = Integer.parseInt(requireValue(args, ++i));
+                case "--warmup-s" -> warmupSeconds = Integer.parseInt(requireValue(args, ++i));
+                case "--duration-s" -> durationSeconds = Integer.parseInt(requireValue(args, ++i));
+                case "--downstream-latency-ms" -> downstreamLatencyMs = Long.parseLong(requireValue(args, ++i));
+                case "--seed" -> seed = Long.parseLong(requireValue(args, ++i));
+                case "--jvm-args" -> jvmArgs = requireValue(args, ++i);
+                case "--output-dir" -> outputDir = Path.of(requireValue(args, ++i));
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        for (String mode : modes) {
+            if (!mode.equals("closed") && !mode.equals("open")) {
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+            }
+        }
+        Files.createDirectories(outputDir);
+
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("Scenarios", String.join(",", scenarios.stream().map(Scenario::id).toList()));
+        parameters.put("Modes", String.join(",", modes));
+        parameters.put("Closed-loop concurrency", String.valueOf(concurrency));
+        parameters.put("Open-loop rate (req/s)", String.valueOf(rate));
+        parameters.put("Warmup / measurement (s)", warmupSeconds + " / " + durationSeconds);
+        parameters.put("Downstream latency (ms)", String.valueOf(downstreamLatencyMs));
+        parameters.put("Payload seed", String.valueOf(seed));
+
+        List<String> jvmArgList = jvmArgs.isBlank() ? List.of() : List.of(jvmArgs.trim().split("\\s+"));
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        List<ScenarioResult> results = new ArrayList<>();
+        List<String> appCommand = List.of();
+
+        try (StubDownstream downstream = new StubDownstream(downstreamLatencyMs)) {
+            for (Scenario scenario : scenarios) {
+                System.out.printf("Starting application for scenario %s%n", scenario.id());
+                try (AppProcess app = AppProcess.start(scenario, jvmArgList, downstream.url(), outputDir,
+                        client, STARTUP_TIMEOUT)) {
+                    appCommand = app.command();
+                    LoadGenerator generator = new LoadGenerator(client, app.baseUrl(), seed, MAX_IN_FLIGHT);
+                    for (String mode : modes) {
+                        run(generator, mode, concurrency, rate, Duration.ofSeconds(warmupSeconds));
+                        AppProcess.JvmStats before = app.stats();
+                        LoadGenerator.Result result = run(generator, mode, concurrency, rate,
+                            Duration.ofSeconds(durationSeconds));
+                        AppProcess.JvmStats after = app.stats();
+                        String load = mode.equals("closed") ? concurrency + " clients" : rate + " req/s";
+                        ScenarioResult scenarioResult = new ScenarioResult(scenario, mode, load, result, before, after);
+                        results.add(scenarioResult);
+                        System.out.println(String.format(Locale.ROOT,
+                            "%-8s %-6s %8.0f req/s  p50=%.2fms p99=%.2fms p99.9=%.2fms  %.1f KB/request  errors=%d",
+                            scenario.id(), mode, result.throughput(), scenarioResult.percentileMs(50),
+                            scenarioResult.percentileMs(99), scenarioResult.percentileMs(99.9),
+                            scenarioResult.allocatedKbPerRequest(), result.errors()));
+                    }
+                }
+            }
+        }
+
+        Path report = new LoadTestReport(parameters, appCommand, results).write(outputDir);
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+    private static LoadGenerator.Result run(LoadGenerator generator, String mode, int concurrency, int rate,
+                                            Duration duration) throws InterruptedException {
+        return mode.equals("closed")
+            ? generator.closedLoop(concurrency, duration)
+            : generator.openLoop(rate, duration);
+    }
+
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        return args[index];
+    }
+}
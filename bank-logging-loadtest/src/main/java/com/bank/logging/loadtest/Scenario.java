@@ -0,0 +1,41 @@
+package com.bank.logging.loadtest;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Application configurations compared by the load test.
+ */
+public enum Scenario {
+
+    OFF("off", "logback-loadtest-plain.xml", "--bank.logging.enabled=false"),
+    DEFAULTS("defaults", "logback-loadtest.xml"),
+    JSON("json", "logback-loadtest-json.xml");
+
+    private final String id;
+    private final String logbackConfig;
+    private final List<String> arguments;
+
+    Scenario(String id, String logbackConfig, String... arguments) {
+        this.id = id;
+        this.logbackConfig = logbackConfig;
+        this.arguments = List.of(arguments);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public List<String> applicationArguments() {
+        return Stream.concat(Stream.of("--logging.config=classpath:" + logbackConfig), arguments.stream()).toList();
+    }
+
+    public static Scenario fromId(String id) {
+        for (Scenario scenario : values()) {
+            if (scenario.id.equals(id)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + id);
+    }
+}
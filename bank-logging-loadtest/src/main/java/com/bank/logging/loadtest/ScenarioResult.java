@@ -0,0 +1,35 @@
+package com.bank.logging.loadtest;
+
+import com.bank.logging.loadtest.AppProcess.JvmStats;
+
+/**
+ * Measurement window of one scenario in one load mode, with the application JVM counters
+ * read before and after it.
+ */
+public record ScenarioResult(Scenario scenario, String mode, String load, LoadGenerator.Result result,
+                             JvmStats before, JvmStats after) {
+
+    public double percentileMs(double percentile) {
+        return result.histogram().getValueAtPercentile(percentile) / 1_000.0;
+    }
+
+    public double maxMs() {
+        return result.histogram().getMaxValue() / 1_000.0;
+    }
+
+    public double allocatedKbPerRequest() {
+        return result.requests() == 0 ? 0 : (after.allocatedBytes() - before.allocatedBytes()) / 1024.0 / result.requests();
+    }
+
+    public double allocationRateMbPerSecond() {
+        return (after.allocatedBytes() - before.allocatedBytes()) / 1_048_576.0 / (result.elapsedNanos() / 1e9);
+    }
+
+    public long gcCount() {
+        return after.gcCount() - before.gcCount();
+    }
+
+    public long gcTimeMs() {
+        return after.gcTimeMs() - before.gcTimeMs();
+    }
+}
@@ -0,0 +1,119 @@
+package com.bank.logging.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Starts the sample payment application repeatedly in fresh JVMs, without any load, and compares
+ * the time to {@code ApplicationReadyEvent} per scenario. Runs are interleaved across scenarios so
+ * that a slow period of the machine does not penalize a single one.
+ * <p>
+ * Command line usage:
+ * <pre>
+ * java -cp bank-logging-loadtest-1.0.0.jar com.bank.logging.loadtest.StartupComparison
+ *      [--scenarios off,defaults,json] [--runs 10] [--jvm-args "-Xms512m -Xmx512m"] [--output-dir DIR]
+ * </pre>
+ */
+public class StartupComparison {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<Scenario> scenarios = List.of(Scenario.values());
+        int runs = 10;
+        String jvmArgs = "-Xms512m -Xmx512m";
+        Path outputDir = Path.of("target", "loadtest");
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scenarios" -> scenarios = Arrays.stream(requireValue(args, ++i).split(","))
+                    .map(Scenario::fromId).toList();
+                case "--runs" -> runs = Integer.parseInt(requireValue(args, ++i));
+                case "--jvm-args" -> jvmArgs = requireValue(args, ++i);
+                case "--output-dir" -> outputDir = Path.of(requireValue(args, ++i));
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        if (runs < 1) {
+            throw new IllegalArgumentException("--runs must be at least 1: " + runs);
+        }
+        Files.createDirectories(outputDir);
+
+        List<String> jvmArgList = jvmArgs.isBlank() ? List.of() : List.of(jvmArgs.trim().split("\\s+"));
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        Map<Scenario, List<Long>> startups = new LinkedHashMap<>();
+        scenarios.forEach(scenario -> startups.put(scenario, new ArrayList<>()));
+
+        try (StubDownstream downstream = new StubDownstream(0)) {
+            // One discarded round: the first JVM pays for cold disk caches
+            for (int run = 0; run <= runs; run++) {
+                for (Scenario scenario : scenarios) {
+                    long startupMs;
+                    try (AppProcess app = AppProcess.start(scenario, jvmArgList, downstream.url(), outputDir,
+                            client, STARTUP_TIMEOUT)) {
+                        startupMs = app.stats().startupMs();
+                    }
+                    if (run > 0) {
+                        startups.get(scenario).add(startupMs);
+                        System.out.printf("%-8s run %2d: %5d ms%n", scenario.id(), run, startupMs);
+                    }
+                }
+            }
+        }
+
+        Path report = write(outputDir, runs, jvmArgs, startups);
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+    private static Path write(Path outputDir, int runs, String jvmArgs, Map<Scenario, List<Long>> startups)
+        throws IOException {
+        List<Long> baseline = startups.get(Scenario.OFF);
+        List<String> lines = new ArrayList<>();
+        lines.add("# Startup comparison");
+        lines.add("");
+        lines.add("Time from JVM start to `ApplicationReadyEvent`, " + runs + " fresh JVMs per scenario, "
+            + "runs interleaved across scenarios. JVM arguments: `" + jvmArgs + "`.");
+        lines.add("");
+        lines.add("| Scenario | Median (ms) | Min (ms) | Max (ms) | Median vs off |");
+        lines.add("|---|---|---|---|---|");
+        for (Map.Entry<Scenario, List<Long>> entry : startups.entrySet()) {
+            List<Long> samples = entry.getValue().stream().sorted().toList();
+            long median = median(samples);
+            String delta = baseline == null || entry.getKey() == Scenario.OFF
+                ? "-"
+                : String.format(Locale.ROOT, "%+d ms", median - median(baseline.stream().sorted().toList()));
+            lines.add(String.format(Locale.ROOT, "| %s | %d | %d | %d | %s |", entry.getKey().id(), median,
+                samples.getFirst(), samples.getLast(), delta));
+        }
+        Path report = outputDir.resolve("startup-report.md");
+        Files.write(report, lines);
+        return report;
+    }
+
+    private static long median(List<Long> sorted) {
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,24 @@
+package com.bank.logging.loadtest.app;
+
+import com.bank.logging.annotation.PaymentLog;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+@Component
+public class FraudCheckClient {
+
+    private final RestClient restClient;
+
+    public FraudCheckClient(RestClient fraudCheckRestClient) {
+        this.restClient = fraudCheckRestClient;
+    }
+
+    @PaymentLog(operation = "FRAUD_CHECK", performanceThresholdMs = 200L)
+    public FraudScore check(PaymentRequest request) {
+        return restClient.post()
+            .uri("/fraud/payments/{reference}/score", request.reference())
+            .body(request)
+            .retrieve()
+            .body(FraudScore.class);
+    }
+}
@@ -0,0 +1,4 @@
+package com.bank.logging.loadtest.app;
+
+public record FraudScore(int score, String decision) {
+}
@@ -0,0 +1,56 @@
+package com.bank.logging.loadtest.app;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JVM counters read by the load-test runner around each measurement window. The listening port
+ * is written to {@code loadtest.port-file} once the application is ready.
+ */
+@RestController
+public class LoadTestProbe {
+
+    private final String portFile;
+    private volatile long startupMs;
+
+    public LoadTestProbe(@Value("${loadtest.port-file:}") String portFile) {
+        this.portFile = portFile;
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) throws IOException {
+        startupMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        if (!portFile.isEmpty()) {
+            String port = event.getApplicationContext().getEnvironment().getProperty("local.server.port");
+            Path target = Path.of(portFile);
+            Path partial = target.resolveSibling(target.getFileName() + ".part");
+            Files.writeString(partial, port);
+            Files.move(partial, target);
+        }
+    }
+
+    @GetMapping("/internal/loadtest/stats")
+    public JvmStats stats() {
+        long gcCount = 0;
+        long gcTimeMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcTimeMs += Math.max(0, gc.getCollectionTime());
+        }
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return new JvmStats(threads.getTotalThreadAllocatedBytes(), gcCount, gcTimeMs, startupMs);
+    }
+
+    public record JvmStats(long allocatedBytes, long gcCount, long gcTimeMs, long startupMs) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.logging.loadtest.app;
+
+import com.bank.logging.propagation.RestClientCorrelationInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Sample payment service driven by the load test: a REST endpoint, {@code @PaymentLog} services
+ * and a downstream fraud-check call, started with {@code bank-logging-spring-boot-starter}.
+ */
+@SpringBootApplication
+public class PaymentApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(PaymentApplication.class, args);
+    }
+
+    @Bean
+    public RestClient fraudCheckRestClient(RestClient.Builder builder,
+                                           ObjectProvider<RestClientCorrelationInterceptor> correlationInterceptor,
+                                           @Value("${loadtest.downstream-url}") String downstreamUrl) {
+        builder.baseUrl(downstreamUrl);
+        correlationInterceptor.ifAvailable(builder::requestInterceptor);
+        return builder.build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.logging.loadtest.app;
+
+import java.math.BigDecimal;
+
+public record PaymentRequest(
+    String reference,
+    String debtorIban,
+    String creditorIban,
+    BigDecimal amount,
+    String currency,
+    String debtorEmail
+) {
+}
@@ -0,0 +1,4 @@
+package com.bank.logging.loadtest.app;
+
+public record PaymentResponse(String paymentId, String reference, String status, int fraudScore) {
+}
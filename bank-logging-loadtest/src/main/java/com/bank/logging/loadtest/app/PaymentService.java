@@ -0,0 +1,33 @@
+package com.bank.logging.loadtest.app;
+
+import com.bank.logging.annotation.PaymentLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Service
+public class PaymentService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+
+    private final FraudCheckClient fraudCheckClient;
+
+    public PaymentService(FraudCheckClient fraudCheckClient) {
+        this.fraudCheckClient = fraudCheckClient;
+    }
+
+    @PaymentLog(operation = "SEPA_TRANSFER", auditEnabled = true)
+    public PaymentResponse execute(PaymentRequest request) {
+        if (request.amount() == null || request.amount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Invalid amount for " + request.reference());
+        }
+        FraudScore fraudScore = fraudCheckClient.check(request);
+        String status = "ACCEPT".equals(fraudScore.decision()) ? "ACCEPTED" : "REJECTED";
+        log.info("Transfer {} from {} to {} {}", request.reference(), request.debtorIban(),
+            request.creditorIban(), status);
+        return new PaymentResponse(UUID.randomUUID().toString(), request.reference(), status, fraudScore.score());
+    }
+}